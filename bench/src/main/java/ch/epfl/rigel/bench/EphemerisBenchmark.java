@@ -0,0 +1,83 @@
+package ch.epfl.rigel.bench;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.epfl.rigel.astronomy.Epoch;
+import ch.epfl.rigel.astronomy.Moon;
+import ch.epfl.rigel.astronomy.MoonModel;
+import ch.epfl.rigel.astronomy.PlanetModel;
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+
+/**
+ * Cost of the computation of the state of a planet and of the moon at a moment,
+ * and of all the planets at many moments by {@code PlanetModel.atAll}
+ *
+ * @author Augustin ALLARD (299918)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EphemerisBenchmark {
+
+    private final static ZonedDateTime WHEN = ZonedDateTime.of(2020, 2, 17, 20, 15, 0, 0, ZoneOffset.UTC);
+    private final static int MOMENTS = 1440;
+
+    private double days;
+    private EclipticToEquatorialConversion conversion;
+    private double[] moments;
+    private double[] ra, dec, angularSizes, magnitudes;
+
+    @Setup
+    public void createMoments() {
+        days = Epoch.J2010.daysUntil(WHEN);
+        conversion = new EclipticToEquatorialConversion(WHEN);
+        // one day at minute resolution
+        moments = new double[MOMENTS];
+        for(int i = 0; i < MOMENTS; ++i)
+            moments[i] = days + i/1440d;
+        int outputLength = PlanetModel.OBSERVED.size()*MOMENTS;
+        ra = new double[outputLength];
+        dec = new double[outputLength];
+        angularSizes = new double[outputLength];
+        magnitudes = new double[outputLength];
+    }
+
+    // per planet
+    @Benchmark
+    @OperationsPerInvocation(7)
+    public void planetModelAt(Blackhole blackhole) {
+        for(PlanetModel planet: PlanetModel.OBSERVED)
+            blackhole.consume(planet.at(days, conversion));
+    }
+
+    @Benchmark
+    public Moon moonModelAt() {
+        return MoonModel.MOON.at(days, conversion);
+    }
+
+    // per planet and moment
+    @Benchmark
+    @OperationsPerInvocation(7*MOMENTS)
+    public double[] planetModelAtAll() {
+        PlanetModel.atAll(moments, ra, dec, angularSizes, magnitudes);
+        return ra;
+    }
+}
@@ -0,0 +1,121 @@
+package ch.epfl.rigel.bench;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.epfl.rigel.astronomy.HygDatabaseLoader;
+import ch.epfl.rigel.astronomy.Parallelism;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+
+/**
+ * Throughput of {@code HygDatabaseLoader} on synthetic hyg_data files, read from a stream or by parallel chunks
+ * from the path, compared with the former loader splitting each line into strings
+ *
+ * @author Augustin ALLARD (299918)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HygDatabaseLoaderBenchmark {
+
+    @Param({ "1000", "10000", "100000" })
+    public int rows;
+
+    private Path file;
+
+    @Setup
+    public void writeFile() throws IOException {
+        file = Files.createTempFile("hygdata-synthetic", ".csv");
+        SyntheticCatalogs.writeHygFile(file, rows);
+    }
+
+    @TearDown
+    public void deleteFile() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public StarCatalogue.Builder loadStream() throws IOException {
+        return new StarCatalogue.Builder().loadFrom(Files.newInputStream(file), HygDatabaseLoader.INSTANCE);
+    }
+
+    @Benchmark
+    public StarCatalogue.Builder loadPath() throws IOException {
+        StarCatalogue.Builder builder = new StarCatalogue.Builder();
+        HygDatabaseLoader.INSTANCE.load(file, builder, Parallelism.defaultParallelism());
+        return builder;
+    }
+
+    @Benchmark
+    public StarCatalogue.Builder loadStreamSplitting() throws IOException {
+        return new StarCatalogue.Builder().loadFrom(Files.newInputStream(file), SplitHygDatabaseLoader.INSTANCE);
+    }
+
+    //================================================================================================
+
+    /**
+     * Former implementation of {@code HygDatabaseLoader}, splitting each line into a {@code String} per column
+     */
+    private enum SplitHygDatabaseLoader implements StarCatalogue.Loader {
+
+        INSTANCE;
+
+        private static final double FACTOR_PARSECS_TO_LIGHT_YEARS = 3.262;
+
+        @Override
+        public void load(InputStream inputStream, StarCatalogue.Builder builder) throws IOException {
+
+            try(BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.US_ASCII))) {
+                String currentLine;
+                reader.readLine();
+                while((currentLine = reader.readLine()) != null) {
+                    String[] lineInfo = currentLine.split(",", -1);
+
+                    int hip = (!(lineInfo[Id.HIP.ordinal()]).equals("")) ? Integer.parseInt(lineInfo[Id.HIP.ordinal()]) : 0;
+                    String name = (!(lineInfo[Id.PROPER.ordinal()]).equals("")) ?
+                            lineInfo[Id.PROPER.ordinal()] :
+                            ( (!(lineInfo[Id.BAYER.ordinal()]).equals("")) ? lineInfo[Id.BAYER.ordinal()] : "?")
+                                    + " " + lineInfo[Id.CON.ordinal()];
+                    float magnitude  = (!(lineInfo[Id.MAG.ordinal()]).equals("")) ?
+                            (float) Double.parseDouble(lineInfo[Id.MAG.ordinal()]) : 0;
+                    float colorIndex = (!(lineInfo[Id.CI.ordinal()]).equals("")) ?
+                            (float) Double.parseDouble(lineInfo[Id.CI.ordinal()]) : 0;
+                    float distance = (!(lineInfo[Id.DIST.ordinal()]).equals("10000000")) ?
+                            (float) (FACTOR_PARSECS_TO_LIGHT_YEARS * Double.parseDouble(lineInfo[Id.DIST.ordinal()])) : -1;
+
+                    builder.addStar(hip, name, Double.parseDouble(lineInfo[Id.RARAD.ordinal()]),
+                            Double.parseDouble(lineInfo[Id.DECRAD.ordinal()]), magnitude, colorIndex, distance);
+                }
+            }
+        }
+
+        private enum Id {
+            ID, HIP, HD, HR, GL, BF, PROPER, RA, DEC, DIST, PMRA, PMDEC,
+            RV, MAG, ABSMAG, SPECT, CI, X, Y, Z, VX, VY, VZ,
+            RARAD, DECRAD, PMRARAD, PMDECRAD, BAYER, FLAM, CON,
+            COMP, COMP_PRIMARY, BASE, LUM, VAR, VAR_MIN, VAR_MAX;
+        }
+    }
+}
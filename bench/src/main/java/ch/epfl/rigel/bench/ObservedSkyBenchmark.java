@@ -0,0 +1,90 @@
+package ch.epfl.rigel.bench;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.epfl.rigel.astronomy.CelestialObject;
+import ch.epfl.rigel.astronomy.HorizontalSky;
+import ch.epfl.rigel.astronomy.ObservedSky;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.coordinates.CartesianCoordinates;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+import ch.epfl.rigel.coordinates.StereographicProjection;
+
+/**
+ * Cost of the creation of an {@code ObservedSky} (at a new moment each time, or only projected again)
+ * and of the search of the object closest to a point, for catalogs of several sizes
+ *
+ * @author Augustin ALLARD (299918)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ObservedSkyBenchmark {
+
+    private final static ZonedDateTime OBS_TIME = ZonedDateTime.of(2020, 2, 17, 20, 15, 0, 0, ZoneOffset.ofHours(1));
+    private final static GeographicCoordinates OBS_PLACE = GeographicCoordinates.ofDeg(6.57, 46.52);
+    private final static int SEARCHED_POINTS = 1024;
+
+    @Param({ "5000", "50000", "200000" })
+    public int stars;
+
+    private StarCatalogue catalog;
+    private StereographicProjection projection;
+    private HorizontalSky horizontalSky;
+    private ObservedSky sky;
+    private CartesianCoordinates[] points;
+    private int nextMinute;
+    private int nextPoint;
+
+    @Setup
+    public void createSky() {
+        catalog = SyntheticCatalogs.catalog(stars);
+        projection = new StereographicProjection(HorizontalCoordinates.ofDeg(180, 22));
+        horizontalSky = new HorizontalSky(OBS_TIME, OBS_PLACE, catalog);
+        sky = new ObservedSky(horizontalSky, projection);
+        // the search tree is built by the first search
+        sky.objectClosestTo(CartesianCoordinates.of(0, 0), 0.1);
+
+        SplittableRandom random = new SplittableRandom(1);
+        points = new CartesianCoordinates[SEARCHED_POINTS];
+        for(int i = 0; i < SEARCHED_POINTS; ++i)
+            points[i] = CartesianCoordinates.of(random.nextDouble(-1, 1), random.nextDouble(-1, 1));
+    }
+
+    @Benchmark
+    public ObservedSky newObservedSky() {
+        // a new moment each time, as during a time animation
+        return new ObservedSky(OBS_TIME.plusMinutes(++nextMinute), OBS_PLACE, projection, catalog);
+    }
+
+    @Benchmark
+    public ObservedSky newObservedSkyProjectedOnly() {
+        return new ObservedSky(horizontalSky, projection);
+    }
+
+    @Benchmark
+    public Optional<CelestialObject> objectClosestTo() {
+        nextPoint = (nextPoint + 1) % SEARCHED_POINTS;
+        return sky.objectClosestTo(points[nextPoint], 0.05);
+    }
+}
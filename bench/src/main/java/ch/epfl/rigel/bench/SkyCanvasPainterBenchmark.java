@@ -0,0 +1,69 @@
+package ch.epfl.rigel.bench;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ch.epfl.rigel.astronomy.ObservedSky;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+import ch.epfl.rigel.coordinates.StereographicProjection;
+import ch.epfl.rigel.gui.ImageSkyGraphics;
+import ch.epfl.rigel.gui.SkyCanvasPainter;
+import ch.epfl.rigel.math.Angle;
+import javafx.scene.transform.Transform;
+
+/**
+ * Cost of the painting of a whole sky by {@code SkyCanvasPainter} on an image, without any JavaFX window,
+ * for catalogs of several sizes
+ *
+ * @author Augustin ALLARD (299918)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SkyCanvasPainterBenchmark {
+
+    private final static int WIDTH = 800;
+    private final static int HEIGHT = 600;
+    private final static double FIELD_OF_VIEW_DEG = 68.4;
+
+    @Param({ "5000", "50000", "200000" })
+    public int stars;
+
+    private ObservedSky sky;
+    private Transform planeToCanvas;
+    private SkyCanvasPainter painter;
+
+    @Setup
+    public void createSky() {
+        StereographicProjection projection = new StereographicProjection(HorizontalCoordinates.ofDeg(180, 22));
+        sky = new ObservedSky(ZonedDateTime.of(2020, 2, 17, 20, 15, 0, 0, ZoneOffset.ofHours(1)),
+                GeographicCoordinates.ofDeg(6.57, 46.52), projection, SyntheticCatalogs.catalog(stars));
+        // same view as SkyCanvasManager
+        double scale = Math.max(WIDTH, HEIGHT) / projection.applyToAngle(Angle.ofDeg(FIELD_OF_VIEW_DEG));
+        planeToCanvas = Transform.affine(scale, 0, 0, -scale, WIDTH/2d, HEIGHT/2d);
+        painter = new SkyCanvasPainter(new ImageSkyGraphics(WIDTH, HEIGHT));
+    }
+
+    @Benchmark
+    public SkyCanvasPainter actualize() {
+        painter.actualize(sky, planeToCanvas, true, true, true, true, true, true);
+        return painter;
+    }
+}
@@ -0,0 +1,96 @@
+package ch.epfl.rigel.bench;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ch.epfl.rigel.coordinates.CartesianCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+import ch.epfl.rigel.coordinates.StereographicProjection;
+
+/**
+ * Cost of one projection and of one inverse projection by a {@code StereographicProjection},
+ * one by one and in bulk (from the horizontal angles or from the horizontal directions)
+ *
+ * @author Alexis FAVRE (310552)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StereographicProjectionBenchmark {
+
+    private final static int POINTS = 1024;
+
+    private StereographicProjection projection;
+    private HorizontalCoordinates[] positions;
+    private CartesianCoordinates[] points;
+    private double[] az;
+    private double[] alt;
+    private double[] directions;
+    private double[] xy;
+
+    @Setup
+    public void createPoints() {
+        projection = new StereographicProjection(HorizontalCoordinates.ofDeg(180, 22));
+        SplittableRandom random = new SplittableRandom(1);
+        positions = new HorizontalCoordinates[POINTS];
+        points = new CartesianCoordinates[POINTS];
+        az  = new double[POINTS];
+        alt = new double[POINTS];
+        directions = new double[3*POINTS];
+        xy = new double[2*POINTS];
+        for(int i = 0; i < POINTS; ++i) {
+            positions[i] = HorizontalCoordinates.ofDeg(random.nextDouble(0, 360), random.nextDouble(-90, 90));
+            points[i] = CartesianCoordinates.of(random.nextDouble(-2, 2), random.nextDouble(-2, 2));
+            // same positions for the bulk projections
+            az[i]  = positions[i].az();
+            alt[i] = positions[i].alt();
+            directions[3*i]     = Math.cos(alt[i])*Math.sin(az[i]);
+            directions[3*i + 1] = Math.cos(alt[i])*Math.cos(az[i]);
+            directions[3*i + 2] = Math.sin(alt[i]);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void apply(Blackhole blackhole) {
+        for(HorizontalCoordinates position: positions)
+            blackhole.consume(projection.apply(position));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double[] applyInBulk() {
+        projection.apply(az, alt, xy, 0, POINTS);
+        return xy;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public double[] applyToDirections() {
+        projection.applyToDirections(directions, xy, 0, POINTS);
+        return xy;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public void inverseApply(Blackhole blackhole) {
+        for(CartesianCoordinates point: points)
+            blackhole.consume(projection.inverseApply(point));
+    }
+}
@@ -0,0 +1,93 @@
+package ch.epfl.rigel.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+import ch.epfl.rigel.astronomy.Asterism;
+import ch.epfl.rigel.astronomy.Star;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+
+/**
+ * Creates reproducible catalogs of any size for the benchmarks, as hyg_data files or directly as {@code StarCatalogue}
+ * (random positions on the whole sphere, magnitudes and color indexes in the ranges of the bundled catalog)
+ *
+ * @author Augustin ALLARD (299918)
+ */
+final class SyntheticCatalogs {
+
+    private final static long SEED = 2020;
+    private final static int STARS_PER_ASTERISM = 6;
+    private final static int STARS_PER_ASTERISM_STEP = 50;
+    private final static String HEADER = "id,hip,hd,hr,gl,bf,proper,ra,dec,dist,pmra,pmdec,rv,mag,absmag,spect,ci,"
+            + "x,y,z,vx,vy,vz,rarad,decrad,pmrarad,pmdecrad,bayer,flam,con,comp,comp_primary,base,lum,var,var_min,var_max";
+    private final static String[] CONSTELLATIONS = { "And", "Ori", "UMa", "Cas", "Cyg", "Sco", "Leo", "Phe" };
+
+    private SyntheticCatalogs() {}
+
+    /**
+     * Write a hyg_data file with the given number of rows, with the columns of the real database
+     *
+     * @param file receiving the rows
+     * @param rows number of stars of the file
+     * @throws IOException if the file could not be written
+     */
+    static void writeHygFile(Path file, int rows) throws IOException {
+        SplittableRandom random = new SplittableRandom(SEED);
+        try(BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            writer.write(HEADER);
+            writer.newLine();
+            for(int id = 1; id <= rows; ++id) {
+                double raRad  = random.nextDouble(0, 2*Math.PI);
+                double decRad = random.nextDouble(-Math.PI/2, Math.PI/2);
+                String proper = (random.nextInt(50) == 0) ? "Star" + id : "";
+                String bayer  = (random.nextInt(5) == 0) ? "Alp" : "";
+                writer.write(String.format(Locale.ROOT,
+                        "%d,%s,%d,,,,%s,%.6f,%.6f,%.4f,%.2f,%.2f,0.0,%.3f,%.3f,G8III,%.3f,"
+                        + "%.6f,%.6f,%.6f,0.00000099,-0.00001579,-0.00001008,%s,%s,-0.00000008687861155555555,"
+                        + "-0.000000032724923,%s,,%s,1,%d,,%s,,,",
+                        id, (random.nextInt(4) == 0) ? "" : Integer.toString(id), 100_000 + id, proper,
+                        Math.toDegrees(raRad) / 15, Math.toDegrees(decRad), random.nextDouble(1, 1000),
+                        random.nextDouble(-50, 50), random.nextDouble(-50, 50), random.nextDouble(-1.5, 12),
+                        random.nextDouble(-5, 10), random.nextDouble(-0.4, 2.5),
+                        random.nextDouble(-100, 100), random.nextDouble(-100, 100), random.nextDouble(-100, 100),
+                        Double.toString(raRad), Double.toString(decRad), bayer,
+                        CONSTELLATIONS[random.nextInt(CONSTELLATIONS.length)], id,
+                        Double.toString(random.nextDouble(0, 1000))));
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Create a catalog of the given number of stars, with asterisms linking some of them
+     * (positions uniform on the sphere, magnitudes in [-1.5, 12[)
+     *
+     * @param starCount number of stars of the catalog
+     * @return the catalog
+     */
+    static StarCatalogue catalog(int starCount) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        StarCatalogue.Builder builder = new StarCatalogue.Builder();
+        for(int i = 0; i < starCount; ++i) {
+            // uniform on the sphere
+            double ra  = random.nextDouble(0, 2*Math.PI);
+            double dec = Math.asin(random.nextDouble(-1, 1));
+            builder.addStar(i + 1, "Star" + i, ra, dec, (float) random.nextDouble(-1.5, 12),
+                    (float) random.nextDouble(-0.4, 2.5), (float) random.nextDouble(1, 1000));
+        }
+
+        List<Star> stars = builder.stars();
+        for(int first = 0; first + STARS_PER_ASTERISM <= starCount; first += STARS_PER_ASTERISM_STEP) {
+            List<Star> asterismStars = new ArrayList<>(stars.subList(first, first + STARS_PER_ASTERISM));
+            builder.addAsterism(new Asterism(asterismStars));
+        }
+        return builder.build();
+    }
+}
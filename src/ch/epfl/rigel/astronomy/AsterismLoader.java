@@ -8,6 +8,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Used to load {@code Asterism} objects from a hyg_data stream to a {@code StarCatalogue.Builder}
@@ -18,8 +19,6 @@ public enum AsterismLoader implements StarCatalogue.Loader {
 
     INSTANCE;
 
-    private final HashMap<Integer, Star> hipparcosIdOfStar = new HashMap<>();
-
     /**
      * Load {@code Asterism} objects created using the the stream content
      * and add them to the given {@code StarCatalogue.Builder}
@@ -30,9 +29,13 @@ public enum AsterismLoader implements StarCatalogue.Loader {
      */
     @Override
     public void load(InputStream inputStream, StarCatalogue.Builder builder) throws IOException {
-        
-        for (Star star : builder.stars()) {
-            hipparcosIdOfStar.put(star.hipparcosId(), star);
+
+        // read the hipparcosIds in the columns to only create the stars that belong to an asterism
+        StarColumns starColumns = builder.starColumns();
+        List<Star> builderStars = builder.stars();
+        Map<Integer, Integer> starIndexOfHipparcosId = new HashMap<>();
+        for (int i = 0; i < starColumns.size(); ++i) {
+            starIndexOfHipparcosId.put(starColumns.hipparcosId(i), i);
         }
 
         try(BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.US_ASCII))) {
@@ -44,9 +47,9 @@ public enum AsterismLoader implements StarCatalogue.Loader {
 
                 // containing verification
                 for (String h : lineHips) {
-                    Star star = hipparcosIdOfStar.get(Integer.parseInt(h));
-                        if(star != null) {
-                        lineStarsContainedInBuilder.add(star);
+                    Integer starIndex = starIndexOfHipparcosId.get(Integer.parseInt(h));
+                        if(starIndex != null) {
+                        lineStarsContainedInBuilder.add(builderStars.get(starIndex));
                         } else {
                         builderContainsAllAsterismStars = false;
                     }
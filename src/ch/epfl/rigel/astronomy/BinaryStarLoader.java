@@ -0,0 +1,179 @@
+package ch.epfl.rigel.astronomy;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Used to load stars from a compact binary catalog to a {@code StarCatalogue.Builder}
+ * The file is made of a header (magic number, version, number of stars) followed by one block per column:
+ * hipparcosIds (int), right ascensions and declinations in radians (double), magnitudes, color indexes and distances
+ * (float), then the offsets (int, one more than the stars) of the names in the final block of UTF-8 bytes
+ * All values are big-endian, so the file can be read directly when it is mapped in memory
+ * The offsets being ints, a catalog takes at most {@code Integer.MAX_VALUE - 8} bytes (about 2 GB),
+ * larger catalogs are neither written nor loaded
+ * Such a file is written by {@code write}, ex: from a hyg_data stream with {@code HygBinaryConverter}
+ *
+ * @author Augustin ALLARD (299918)
+ * @see HygBinaryConverter
+ */
+public enum BinaryStarLoader implements StarCatalogue.Loader {
+
+    INSTANCE;
+
+    private final static int MAGIC_NUMBER = 0x52475354; // "RGST"
+    private final static int VERSION = 1;
+    private final static int HEADER_BYTES = 3*Integer.BYTES;
+    // hipparcosId, ra, dec, magnitude, colorIndex, distance and name offset of each star
+    private final static int BYTES_PER_STAR = 2*Integer.BYTES + 2*Double.BYTES + 3*Float.BYTES;
+    // size of the largest array that can be allocated, so also the largest catalog read from a stream
+    private final static int MAX_CATALOG_BYTES = Integer.MAX_VALUE - 8;
+
+    /**
+     * Load the stars of the binary catalog contained in the stream
+     * and add them to the given {@code StarCatalogue.Builder} (without creating the {@code Star} objects)
+     *
+     * @param inputStream the stream containing the binary catalog
+     * @param builder receiving the stars
+     * @throws IOException if I/O error occurs, if the stream is not a valid binary catalog or if it is too large
+     */
+    @Override
+    public void load(InputStream inputStream, StarCatalogue.Builder builder) throws IOException {
+        try(InputStream stream = inputStream) {
+            byte[] bytes = stream.readNBytes(MAX_CATALOG_BYTES);
+            if(stream.read() != -1)
+                throw tooLarge();
+            load(ByteBuffer.wrap(bytes), builder);
+        }
+    }
+
+    /**
+     * Load the stars of the binary catalog contained in the file, that is mapped in memory instead of being read,
+     * and add them to the given {@code StarCatalogue.Builder} (without creating the {@code Star} objects)
+     *
+     * @param path of the file containing the binary catalog
+     * @param builder receiving the stars
+     * @throws IOException if I/O error occurs, if the file is not a valid binary catalog or if it is too large
+     */
+    @Override
+    public void load(Path path, StarCatalogue.Builder builder) throws IOException {
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // a mapping cannot be larger than Integer.MAX_VALUE bytes
+            if(channel.size() > MAX_CATALOG_BYTES)
+                throw tooLarge();
+            load(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), builder);
+        }
+    }
+
+    /**
+     * Write the stars of the builder as a binary catalog that can be loaded by {@code BinaryStarLoader.INSTANCE}
+     *
+     * @param builder containing the stars to write
+     * @param outputStream receiving the binary catalog (not closed)
+     * @throws IOException if I/O error occurs or if the catalog would be too large (nothing is written then)
+     */
+    public static void write(StarCatalogue.Builder builder, OutputStream outputStream) throws IOException {
+        StarColumns stars = builder.starColumns();
+        int count = stars.size();
+
+        // the names are encoded first, so the size of the catalog is checked before writing anything
+        byte[][] names = new byte[count][];
+        long catalogBytes = HEADER_BYTES + (long) count*BYTES_PER_STAR + Integer.BYTES;
+        for(int i = 0; i < count; ++i) {
+            names[i] = stars.names()[i].getBytes(StandardCharsets.UTF_8);
+            catalogBytes += names[i].length;
+        }
+        if(catalogBytes > MAX_CATALOG_BYTES)
+            throw tooLarge();
+
+        DataOutputStream output = new DataOutputStream(new BufferedOutputStream(outputStream));
+
+        output.writeInt(MAGIC_NUMBER);
+        output.writeInt(VERSION);
+        output.writeInt(count);
+        for(int i = 0; i < count; ++i)
+            output.writeInt(stars.hipparcosIds()[i]);
+        for(int i = 0; i < count; ++i)
+            output.writeDouble(stars.ra()[i]);
+        for(int i = 0; i < count; ++i)
+            output.writeDouble(stars.dec()[i]);
+        for(int i = 0; i < count; ++i)
+            output.writeFloat(stars.magnitudes()[i]);
+        for(int i = 0; i < count; ++i)
+            output.writeFloat(stars.colorIndexes()[i]);
+        for(int i = 0; i < count; ++i)
+            output.writeFloat(stars.distances()[i]);
+
+        // cannot overflow, the names being part of the checked size
+        int offset = 0;
+        output.writeInt(offset);
+        for(int i = 0; i < count; ++i) {
+            offset += names[i].length;
+            output.writeInt(offset);
+        }
+        for(byte[] name: names)
+            output.write(name);
+        output.flush();
+    }
+
+    /* *************************************************************************
+     *                                                                         *
+     *                    Internal implementation stuff                        *
+     *                                                                         *
+     **************************************************************************/
+
+    private static void load(ByteBuffer buffer, StarCatalogue.Builder builder) throws IOException {
+        if(buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC_NUMBER)
+            throw new IOException("not a binary star catalog");
+        if(buffer.getInt(Integer.BYTES) != VERSION)
+            throw new IOException("unsupported binary star catalog version " + buffer.getInt(Integer.BYTES));
+
+        int count = buffer.getInt(2*Integer.BYTES);
+        long columnsBytes = HEADER_BYTES + (long) count*BYTES_PER_STAR + Integer.BYTES;
+        if(count < 0 || buffer.limit() < columnsBytes)
+            throw new IOException("truncated binary star catalog");
+
+        // the offsets are smaller than columnsBytes, so than the size of the buffer, and cannot overflow
+        int hipOffset        = HEADER_BYTES;
+        int raOffset         = hipOffset + count*Integer.BYTES;
+        int decOffset        = raOffset + count*Double.BYTES;
+        int magnitudeOffset  = decOffset + count*Double.BYTES;
+        int colorIndexOffset = magnitudeOffset + count*Float.BYTES;
+        int distanceOffset   = colorIndexOffset + count*Float.BYTES;
+        int nameOffset       = distanceOffset + count*Float.BYTES;
+        int namesStart       = nameOffset + (count + 1)*Integer.BYTES;
+
+        int namesLength = buffer.getInt(nameOffset + count*Integer.BYTES);
+        if(namesLength < 0 || buffer.limit() - namesStart < namesLength)
+            throw new IOException("truncated binary star catalog");
+        byte[] names = new byte[namesLength];
+        buffer.duplicate().position(namesStart).get(names);
+
+        try {
+            for(int i = 0; i < count; ++i) {
+                int nameFrom = buffer.getInt(nameOffset + i*Integer.BYTES);
+                int nameTo   = buffer.getInt(nameOffset + (i + 1)*Integer.BYTES);
+                builder.addStar(buffer.getInt(hipOffset + i*Integer.BYTES),
+                        new String(names, nameFrom, nameTo - nameFrom, StandardCharsets.UTF_8),
+                        buffer.getDouble(raOffset + i*Double.BYTES),
+                        buffer.getDouble(decOffset + i*Double.BYTES),
+                        buffer.getFloat(magnitudeOffset + i*Float.BYTES),
+                        buffer.getFloat(colorIndexOffset + i*Float.BYTES),
+                        buffer.getFloat(distanceOffset + i*Float.BYTES));
+            }
+        } catch(IllegalArgumentException | IndexOutOfBoundsException e) {
+            throw new IOException("corrupted binary star catalog", e);
+        }
+    }
+
+    private static IOException tooLarge() {
+        return new IOException("binary star catalog larger than " + MAX_CATALOG_BYTES + " bytes");
+    }
+}
@@ -0,0 +1,207 @@
+package ch.epfl.rigel.astronomy;
+
+import static ch.epfl.rigel.Preconditions.checkArgument;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+
+/**
+ * Keeps the states of the sun, the moon and the planets computed for the last moments asked,
+ * so they are not computed again when the same moment is observed again
+ * (ex: when going back and forth in time, or when the sky is observed from several places at the same moment)
+ * The moments are quantized: all the moments of a same interval of {@code quantum} days share the states
+ * computed for the start of this interval (a quantum of 0 keeps the exact moments)
+ * When the cache is full, the least recently used states are forgotten
+ * The cache can be shared between threads
+ *
+ * @author Augustin ALLARD (299918)
+ * @see HorizontalSky
+ */
+public final class EphemerisCache {
+
+    /**
+     * Default number of moments kept by a cache
+     */
+    public final static int DEFAULT_CAPACITY = 256;
+
+    private final static double NANOS_PER_DAY = 8.64e13;
+
+    private static volatile EphemerisCache defaultCache = new EphemerisCache(0, DEFAULT_CAPACITY);
+
+    private final double quantum;
+    private final int capacity;
+    private final Map<Long, Ephemeris> ephemerides;
+    private long hits;
+    private long misses;
+
+    /**
+     * @param quantum the duration in days of the intervals sharing the same states (0 to keep the exact moments)
+     * @param capacity maximal number of moments kept (must be strictly positive)
+     * @throws IllegalArgumentException if the quantum is negative or not finite, or if the capacity is not strictly positive
+     */
+    public EphemerisCache(double quantum, int capacity) throws IllegalArgumentException {
+        checkArgument(quantum >= 0 && Double.isFinite(quantum));
+        checkArgument(capacity > 0);
+        this.quantum  = quantum;
+        this.capacity = capacity;
+        this.ephemerides = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Ephemeris> eldest) {
+                return size() > EphemerisCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * @return the cache used when none is given (exact moments with the default capacity at start)
+     */
+    public static EphemerisCache defaultCache() {
+        return defaultCache;
+    }
+
+    /**
+     * @param cache the cache to use when none is given
+     */
+    public static void setDefaultCache(EphemerisCache cache) {
+        defaultCache = Objects.requireNonNull(cache);
+    }
+
+    /**
+     * Gives the states of the sun, the moon and the planets at the given moment,
+     * computed only if they are not already known for the interval of this moment
+     *
+     * @param when the moment of the observation
+     * @return the states at the start of the interval containing the moment (or exactly at the moment if the quantum is 0)
+     */
+    public Ephemeris at(ZonedDateTime when) {
+        double days = Epoch.J2010.daysUntil(when);
+        long key = (quantum == 0) ? Double.doubleToLongBits(days) : (long) Math.floor(days/quantum);
+
+        synchronized(this) {
+            Ephemeris known = ephemerides.get(key);
+            if(known != null) {
+                ++hits;
+                return known;
+            }
+            ++misses;
+        }
+
+        // computed without lock, if two threads compute the same moment the first one stored is kept
+        Ephemeris computed;
+        if(quantum == 0) {
+            computed = new Ephemeris(days, new EclipticToEquatorialConversion(when));
+        } else {
+            double quantizedDays = key*quantum;
+            ZonedDateTime quantizedWhen = when.plusNanos(Math.round((quantizedDays - days)*NANOS_PER_DAY));
+            computed = new Ephemeris(quantizedDays, new EclipticToEquatorialConversion(quantizedWhen));
+        }
+        synchronized(this) {
+            Ephemeris known = ephemerides.putIfAbsent(key, computed);
+            return (known != null) ? known : computed;
+        }
+    }
+
+    /**
+     * Forget all the states kept
+     */
+    public synchronized void clear() {
+        ephemerides.clear();
+    }
+
+    // getters ======================================================================================
+
+    /**
+     * @return the duration in days of the intervals sharing the same states
+     */
+    public double quantum() {
+        return quantum;
+    }
+
+    /**
+     * @return the maximal number of moments kept
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * @return the number of moments currently kept
+     */
+    public synchronized int size() {
+        return ephemerides.size();
+    }
+
+    /**
+     * @return the number of times asked states were already known
+     */
+    public synchronized long hits() {
+        return hits;
+    }
+
+    /**
+     * @return the number of times asked states had to be computed
+     */
+    public synchronized long misses() {
+        return misses;
+    }
+
+    //================================================================================================
+
+    /**
+     * States of the sun, the moon and the planets at a given moment
+     */
+    public static final class Ephemeris {
+
+        private final double daysSinceJ2010;
+        private final Sun sun;
+        private final Moon moon;
+        private final List<Planet> planets;
+
+        private Ephemeris(double daysSinceJ2010, EclipticToEquatorialConversion eclToEqu) {
+            this.daysSinceJ2010 = daysSinceJ2010;
+            sun  = SunModel.SUN.at(daysSinceJ2010, eclToEqu);
+            moon = MoonModel.MOON.at(daysSinceJ2010, eclToEqu);
+            List<Planet> computedPlanets = new ArrayList<>();
+            for(PlanetModel planetModel: PlanetModel.ALL) {
+                if(planetModel != PlanetModel.EARTH)
+                    computedPlanets.add(planetModel.at(daysSinceJ2010, eclToEqu));
+            }
+            planets = Collections.unmodifiableList(computedPlanets);
+        }
+
+        /**
+         * @return the moment of the states in days since {@code Epoch.J2010}
+         */
+        public double daysSinceJ2010() {
+            return daysSinceJ2010;
+        }
+
+        /**
+         * @return the sun at this moment
+         */
+        public Sun sun() {
+            return sun;
+        }
+
+        /**
+         * @return the moon at this moment
+         */
+        public Moon moon() {
+            return moon;
+        }
+
+        /**
+         * @return the 7 extraterrestrials planets of the SolarSystem at this moment
+         */
+        public List<Planet> planets() {
+            return planets;
+        }
+    }
+}
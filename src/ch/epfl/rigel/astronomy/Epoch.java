@@ -29,9 +29,11 @@ public enum Epoch {
     private final static double MILI_SEC_PER_DAY = 8.64e+7;
     private final static double NUMBER_OF_DAYS_PER_JULIAN_CENTURY = 36525;
     private final ZonedDateTime date;
+    private final long epochMillis;
 
     Epoch(ZonedDateTime date) {
         this.date = date;
+        this.epochMillis = date.toInstant().toEpochMilli();
     }
 
     /**
@@ -53,4 +55,37 @@ public enum Epoch {
     public double julianCenturiesUntil(ZonedDateTime when) {
         return date.until(when, ChronoUnit.MILLIS) / (MILI_SEC_PER_DAY * NUMBER_OF_DAYS_PER_JULIAN_CENTURY);
     };
+
+    /**
+     * Same as {@code daysUntil(ZonedDateTime)} for a date given as a number of milliseconds
+     * since 1970-01-01T00:00Z, without creating any object
+     *
+     * @param epochMillis the date from which we want to measure the day gap with {@code this}
+     * @return exact days from the Epoch {@code this} until the given date (negative if anterior)
+     */
+    public double daysUntil(long epochMillis) {
+        return (epochMillis - this.epochMillis) / MILI_SEC_PER_DAY;
+    }
+
+    /**
+     * Same as {@code julianCenturiesUntil(ZonedDateTime)} for a date given as a number of milliseconds
+     * since 1970-01-01T00:00Z, without creating any object
+     *
+     * @param epochMillis the date from which we want to measure the julianCenturies gap with {@code this}
+     * @return exact julianCenturies from the Epoch {@code this} until the given date (negative if anterior)
+     */
+    public double julianCenturiesUntil(long epochMillis) {
+        return (epochMillis - this.epochMillis) / (MILI_SEC_PER_DAY * NUMBER_OF_DAYS_PER_JULIAN_CENTURY);
+    }
+
+    /**
+     * This calculates the time gap in days between {@code this} and another epoch
+     * (ex: to convert a number of days since J2010 into a number of days since J2000 without any date)
+     *
+     * @param other the epoch from which we want to measure the day gap with {@code this}
+     * @return exact days from the Epoch {@code this} until the other one (negative if anterior)
+     */
+    public double daysUntil(Epoch other) {
+        return daysUntil(other.date);
+    }
 }
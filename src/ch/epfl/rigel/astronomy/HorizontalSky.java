@@ -0,0 +1,196 @@
+package ch.epfl.rigel.astronomy;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import ch.epfl.rigel.coordinates.EquatorialToHorizontalConversion;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+
+/**
+ * Represents the positions of the {@code CelestialObjects} in the horizontal system
+ * at a given time and place of observation, before any projection
+ * It contains all the computations that depend only on the time and place (ephemerides and conversions),
+ * the ephemerides being taken from the default {@code EphemerisCache},
+ * so it can be kept while the observer only changes the direction of its look
+ * and projected again by each new {@code ObservedSky}
+ *
+ * @author Augustin ALLARD (299918)
+ * @see ObservedSky
+ */
+public final class HorizontalSky {
+
+    private final ZonedDateTime obsTime;
+    private final GeographicCoordinates obsPlace;
+    private final StarCatalogue catalog;
+
+    private final Sun sun;
+    private final Moon moon;
+    private final List<Planet> planets;
+    private final HorizontalCoordinates sunPosition;
+    private final HorizontalCoordinates moonPosition;
+    private final List<HorizontalCoordinates> planetPositions;
+    private final int starCount;
+    private final double[] starDirections;
+
+    /**
+     * @param obsTime the time of the observation
+     * @param obsPlace the coordinates of the observer
+     * @param catalog containing the observed stars and asterisms
+     */
+    public HorizontalSky(ZonedDateTime obsTime, GeographicCoordinates obsPlace, StarCatalogue catalog) {
+        this(obsTime, obsPlace, catalog, Parallelism.defaultParallelism());
+    }
+
+    /**
+     * @param obsTime the time of the observation
+     * @param obsPlace the coordinates of the observer
+     * @param catalog containing the observed stars and asterisms
+     * @param parallelism used to convert the stars positions
+     */
+    public HorizontalSky(ZonedDateTime obsTime, GeographicCoordinates obsPlace, StarCatalogue catalog,
+                         Parallelism parallelism) {
+        this(obsTime, obsPlace, catalog, Double.POSITIVE_INFINITY, parallelism);
+    }
+
+    /**
+     * Only the stars visible under the limiting magnitude are converted to the horizontal system
+     * (the first ones of the catalog since they are sorted by magnitude)
+     *
+     * @param obsTime the time of the observation
+     * @param obsPlace the coordinates of the observer
+     * @param catalog containing the observed stars and asterisms
+     * @param limitingMagnitude the magnitude of the faintest stars that will be observed
+     * @param parallelism used to convert the stars positions
+     * @throws IllegalArgumentException if the limiting magnitude is NaN
+     */
+    public HorizontalSky(ZonedDateTime obsTime, GeographicCoordinates obsPlace, StarCatalogue catalog,
+                         double limitingMagnitude, Parallelism parallelism) throws IllegalArgumentException {
+
+        this.obsTime  = obsTime;
+        this.obsPlace = obsPlace;
+        this.catalog  = catalog;
+        this.starCount = catalog.starCountUpToMagnitude(limitingMagnitude);
+
+        // create coordinates converter
+        EquatorialToHorizontalConversion equToHor = new EquatorialToHorizontalConversion(obsTime, obsPlace);
+
+        // the states of the solar system objects are shared by the skies observed at the same moment
+        EphemerisCache.Ephemeris ephemeris = EphemerisCache.defaultCache().at(obsTime);
+
+        sun          = ephemeris.sun();
+        sunPosition  = equToHor.apply(sun.equatorialPos());
+
+        moon         = ephemeris.moon();
+        moonPosition = equToHor.apply(moon.equatorialPos());
+
+        List<HorizontalCoordinates> computedPositions = new ArrayList<>();
+        for(Planet planet: ephemeris.planets())
+            computedPositions.add(equToHor.apply(planet.equatorialPos()));
+        planets         = ephemeris.planets();
+        planetPositions = Collections.unmodifiableList(computedPositions);
+
+        // the stars are kept as directions (3 components each) to be projected without trigonometry
+        StarColumns starColumns = catalog.columns();
+        starDirections = new double[3*starCount];
+        double[] starsRa  = starColumns.ra();
+        double[] starsDec = starColumns.dec();
+        parallelism.forEachRange(starCount,
+                (from, to) -> equToHor.applyToDirections(starsRa, starsDec, starDirections, from, to));
+    }
+
+    //getters====================================================================================
+
+    /**
+     * @return the time of the observation
+     */
+    public ZonedDateTime obsTime() {
+        return obsTime;
+    }
+
+    /**
+     * @return the coordinates of the observer
+     */
+    public GeographicCoordinates obsPlace() {
+        return obsPlace;
+    }
+
+    /**
+     * @return the catalog containing the observed stars and asterisms
+     */
+    public StarCatalogue catalog() {
+        return catalog;
+    }
+
+    /**
+     * @return the sun in its state corresponding to the observation moment
+     */
+    public Sun sun() {
+        return sun;
+    }
+
+    /**
+     * @return the moon in its state corresponding to the observation moment
+     */
+    public Moon moon() {
+        return moon;
+    }
+
+    /**
+     * @return the 7 extraterrestrials planets of the SolarSystem in their state corresponding to the observation moment
+     */
+    public List<Planet> planets() {
+        return planets;
+    }
+
+    /**
+     * @return the position of the sun in the horizontal system
+     */
+    public HorizontalCoordinates sunPosition() {
+        return sunPosition;
+    }
+
+    /**
+     * @return the position of the moon in the horizontal system
+     */
+    public HorizontalCoordinates moonPosition() {
+        return moonPosition;
+    }
+
+    /**
+     * @return the positions in the horizontal system of the planets, in the order of {@code planets()}
+     */
+    public List<HorizontalCoordinates> planetPositions() {
+        return planetPositions;
+    }
+
+    /**
+     * @return the number of stars converted to the horizontal system, which are the first ones of the catalog
+     */
+    public int starCount() {
+        return starCount;
+    }
+
+    /**
+     * @param index of the star in the catalog (in [0, starCount()[)
+     * @return true if the star is strictly above the horizon
+     * @throws IndexOutOfBoundsException if the star has not been converted
+     */
+    public boolean isStarAboveHorizon(int index) throws IndexOutOfBoundsException {
+        if(index < 0 || index >= starCount)
+            throw new IndexOutOfBoundsException(index);
+        // zenith component of the direction, which is sin(alt)
+        return starDirections[3*index + 2] > 0;
+    }
+
+    /**
+     * @return the directions of the first {@code starCount()} stars of the catalog in the horizontal system
+     * (not copied, must not be modified)
+     * @see ch.epfl.rigel.coordinates.EquatorialToHorizontalConversion#applyToDirections
+     */
+    double[] starDirections() {
+        return starDirections;
+    }
+}
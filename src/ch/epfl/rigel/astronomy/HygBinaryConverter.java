@@ -0,0 +1,47 @@
+package ch.epfl.rigel.astronomy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Non instantiable class containing only {@code static} methods
+ * Used to convert a hyg_data catalog (csv) to the binary catalog format read by {@code BinaryStarLoader},
+ * that is much faster to load
+ * (ex: {@code java ch.epfl.rigel.astronomy.HygBinaryConverter hygdata_v3.csv hygdata_v3.bin})
+ *
+ * @author Augustin ALLARD (299918)
+ * @see BinaryStarLoader
+ */
+public final class HygBinaryConverter {
+
+    private HygBinaryConverter() {}
+
+    /**
+     * Convert the given hyg_data file to a binary catalog
+     *
+     * @param hygPath path of the hyg_data file (csv)
+     * @param binaryPath path of the binary catalog to create (replaced if it exists)
+     * @throws IOException if I/O error occurs
+     */
+    public static void convert(Path hygPath, Path binaryPath) throws IOException {
+        StarCatalogue.Builder builder = new StarCatalogue.Builder().loadFrom(hygPath, HygDatabaseLoader.INSTANCE);
+        try(OutputStream outputStream = Files.newOutputStream(binaryPath)) {
+            BinaryStarLoader.write(builder, outputStream);
+        }
+    }
+
+    /**
+     * @param args path of the hyg_data file followed by the path of the binary catalog to create
+     * @throws IOException if I/O error occurs
+     */
+    public static void main(String[] args) throws IOException {
+        if(args.length != 2) {
+            System.err.println("usage: HygBinaryConverter <hyg_data.csv> <catalog.bin>");
+            System.exit(1);
+        }
+        convert(Paths.get(args[0]), Paths.get(args[1]));
+    }
+}
@@ -1,12 +1,18 @@
 package ch.epfl.rigel.astronomy;
 
-import ch.epfl.rigel.coordinates.EquatorialCoordinates;
-
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 
 /**
  * Used to load {@code Star} objects from a hyg_data stream to a {@code StarCatalogue.Builder}
+ * The stream is read as raw bytes: the lines are cut into fields in place
+ * and only the fields used by a {@code Star} are converted (numbers are parsed directly from the bytes)
+ * A file given by its path is parsed by chunks in parallel
  *
  * @author Augustin ALLARD (299918)
  */
@@ -15,10 +21,13 @@ public enum HygDatabaseLoader implements StarCatalogue.Loader {
     INSTANCE;
 
     private static final double FACTOR_PARSECS_TO_LIGHT_YEARS = 3.262;
+    private static final int BUFFER_SIZE = 1 << 16;
+    // number of bytes of the chunks of a file parsed in parallel
+    private static final long CHUNK_SIZE = 1 << 23;
 
     /**
-     * Load {@code Star} objects created using the the stream content
-     * and add them to the given {@code StarCatalogue.Builder}
+     * Load the stars described by the stream content
+     * and add them to the given {@code StarCatalogue.Builder} (without creating the {@code Star} objects)
      *
      * @param inputStream the stream containing data to create the objects
      * @param builder receiving the objects
@@ -27,30 +36,302 @@ public enum HygDatabaseLoader implements StarCatalogue.Loader {
     @Override
     public void load(InputStream inputStream, StarCatalogue.Builder builder) throws IOException {
 
-        try(BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream , StandardCharsets.US_ASCII))) {
-            String currentLine;
-            reader.readLine();
-            while((currentLine = reader.readLine()) != null) {
-                String[] lineInfo = currentLine.split(",", -1);
-
-                int hip = (!(lineInfo[Id.HIP.ordinal()]).equals("")) ? Integer.parseInt(lineInfo[Id.HIP.ordinal()]) : 0;
-                String name = (!(lineInfo[Id.PROPER.ordinal()]).equals("")) ?
-                        lineInfo[Id.PROPER.ordinal()] :
-                        ( (!(lineInfo[Id.BAYER.ordinal()]).equals("")) ? lineInfo[Id.BAYER.ordinal()] : "?")
-                                + " " + lineInfo[Id.CON.ordinal()];
-                float magnitude  = (!(lineInfo[Id.MAG.ordinal()]).equals("")) ?
-                        (float) Double.parseDouble(lineInfo[Id.MAG.ordinal()]) : 0;
-                float colorIndex = (!(lineInfo[Id.CI.ordinal()]).equals("")) ?
-                        (float) Double.parseDouble(lineInfo[Id.CI.ordinal()]) : 0;
-                float distance = (!(lineInfo[Id.CI.ordinal()]).equals("10000000")) ?
-                        (float) (FACTOR_PARSECS_TO_LIGHT_YEARS * Double.parseDouble(lineInfo[Id.DIST.ordinal()])) : -1;
-
-                builder.addStar(new Star(hip, name, EquatorialCoordinates.of(Double.parseDouble(lineInfo[Id.RARAD.ordinal()]),
-                        Double.parseDouble(lineInfo[Id.DECRAD.ordinal()])), magnitude, colorIndex, distance));
+        try(InputStream stream = inputStream) {
+            parseLines(stream, new LineParser(builder.starColumns()), Long.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Load the stars described by the file content with the default {@code Parallelism}
+     * and add them to the given {@code StarCatalogue.Builder} (without creating the {@code Star} objects)
+     *
+     * @param path of the file containing data to create the objects
+     * @param builder receiving the objects
+     * @throws IOException if I/O error occurs
+     * @see #load(Path, StarCatalogue.Builder, Parallelism)
+     */
+    @Override
+    public void load(Path path, StarCatalogue.Builder builder) throws IOException {
+        load(path, builder, Parallelism.defaultParallelism());
+    }
+
+    /**
+     * Load the stars described by the file content
+     * and add them to the given {@code StarCatalogue.Builder} (without creating the {@code Star} objects)
+     * The file is split in chunks of lines that are parsed in parallel,
+     * the stars being added in the order of the file whatever the order the chunks are parsed
+     *
+     * @param path of the file containing data to create the objects
+     * @param builder receiving the objects
+     * @param parallelism used to parse the chunks
+     * @throws IOException if I/O error occurs
+     */
+    public void load(Path path, StarCatalogue.Builder builder, Parallelism parallelism) throws IOException {
+
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunkCount = (int) Math.max(1, (size + CHUNK_SIZE - 1) / CHUNK_SIZE);
+            StarColumns[] chunks = new StarColumns[chunkCount];
+
+            try {
+                parallelism.forEachChunk(chunkCount, (from, to) -> {
+                    for(int i = from; i < to; ++i) {
+                        chunks[i] = new StarColumns();
+                        parseChunk(channel, i*CHUNK_SIZE, Math.min(size, (i + 1)*CHUNK_SIZE), chunks[i]);
+                    }
+                });
+            } catch(UncheckedIOException e) {
+                throw e.getCause();
             }
+
+            for(StarColumns chunk: chunks)
+                builder.starColumns().addAll(chunk);
+        }
+    }
+
+    /* *************************************************************************
+     *                                                                         *
+     *                    Internal implementation stuff                        *
+     *                                                                         *
+     **************************************************************************/
+
+    /*
+     * A chunk contains the lines starting in [start, end[
+     * Its stream begins one byte before the start, so skipping its first (partial) line
+     * skips the line of the previous chunk or the header of the file for the first chunk
+     */
+    private static void parseChunk(FileChannel channel, long start, long end, StarColumns stars) {
+        long streamStart = Math.max(0, start - 1);
+        try {
+            parseLines(new ChannelRangeInputStream(channel, streamStart), new LineParser(stars), end - streamStart);
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+     * Parses the lines of the stream starting before the limit (a number of bytes from the start of the stream),
+     * except the first one which is skipped
+     */
+    private static void parseLines(InputStream stream, LineParser parser, long limit) throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long bufferOffset = 0;
+        int length = 0;
+        int read;
+        boolean first = true;
+
+        while((read = stream.read(buffer, length, buffer.length - length)) != -1) {
+            length += read;
+            int lineStart = 0;
+            for(int lineEnd = indexOfNewLine(buffer, 0, length); lineEnd >= 0;
+                lineEnd = indexOfNewLine(buffer, lineStart, length)) {
+                if(bufferOffset + lineStart >= limit)
+                    return;
+                if(first)
+                    first = false;
+                else
+                    parser.parse(buffer, lineStart, lineEnd);
+                lineStart = lineEnd + 1;
+            }
+            // keep the beginning of the unfinished line, the buffer being enlarged for lines longer than it
+            length -= lineStart;
+            bufferOffset += lineStart;
+            System.arraycopy(buffer, lineStart, buffer, 0, length);
+            if(length == buffer.length)
+                buffer = Arrays.copyOf(buffer, 2*buffer.length);
+        }
+        if(length > 0 && !first && bufferOffset < limit)
+            parser.parse(buffer, 0, length);
+    }
+
+    private static int indexOfNewLine(byte[] bytes, int from, int to) {
+        for(int i = from; i < to; ++i) {
+            if(bytes[i] == '\n')
+                return i;
+        }
+        return -1;
+    }
+
+    //================================================================================================
+
+    /**
+     * Stream of the bytes of a file channel from a given position, read without changing the channel position
+     * (so several streams can read the same channel at the same time)
+     */
+    private static final class ChannelRangeInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private long position;
+
+        private ChannelRangeInputStream(FileChannel channel, long position) {
+            this.channel  = channel;
+            this.position = position;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] oneByte = new byte[1];
+            return (read(oneByte, 0, 1) == -1) ? -1 : oneByte[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) throws IOException {
+            if(length == 0)
+                return 0;
+            int read = channel.read(ByteBuffer.wrap(bytes, offset, length), position);
+            if(read > 0)
+                position += read;
+            return read;
         }
     }
 
+    //================================================================================================
+
+    /**
+     * Parses the lines of a hyg_data file given as bytes and adds the corresponding stars to a set of stars
+     * (keeps the bounds of the fields of the current line to avoid any allocation apart from the names)
+     */
+    private static final class LineParser {
+
+        private final static Id LAST_USED_FIELD = Id.CON;
+        private final static double[] POWERS_OF_TEN = {
+                1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+        // numbers whose digits form an integer under this bound are exactly represented by a double
+        private final static long MAX_EXACT_MANTISSA = 1L << 53;
+
+        private final StarColumns stars;
+        private final int[] fieldStarts = new int[LAST_USED_FIELD.ordinal() + 1];
+        private final int[] fieldEnds   = new int[LAST_USED_FIELD.ordinal() + 1];
+        private byte[] bytes;
+
+        private LineParser(StarColumns stars) {
+            this.stars = stars;
+        }
+
+        private void parse(byte[] lineBytes, int from, int to) throws IOException {
+            if(to > from && lineBytes[to - 1] == '\r')
+                --to;
+            if(to == from)
+                return;
+            bytes = lineBytes;
+            splitFields(from, to);
+
+            int hip = isEmpty(Id.HIP) ? 0 : parseInt(Id.HIP);
+            String name = !isEmpty(Id.PROPER) ? string(Id.PROPER) :
+                    (!isEmpty(Id.BAYER) ? string(Id.BAYER) : "?") + " " + string(Id.CON);
+            float magnitude  = isEmpty(Id.MAG) ? 0 : (float) parseDouble(Id.MAG);
+            float colorIndex = isEmpty(Id.CI) ? 0 : (float) parseDouble(Id.CI);
+            // 10000000 parsecs is the distance given to stars whose distance is unknown
+            float distance   = !is(Id.DIST, "10000000") ?
+                    (float) (FACTOR_PARSECS_TO_LIGHT_YEARS * parseDouble(Id.DIST)) : -1;
+
+            stars.add(hip, name, parseDouble(Id.RARAD), parseDouble(Id.DECRAD), magnitude, colorIndex, distance);
+        }
+
+        private void splitFields(int from, int to) throws IOException {
+            int field = 0;
+            int fieldStart = from;
+            for(int i = from; i <= to && field < fieldStarts.length; ++i) {
+                if(i == to || bytes[i] == ',') {
+                    fieldStarts[field] = fieldStart;
+                    fieldEnds[field]   = i;
+                    ++field;
+                    fieldStart = i + 1;
+                }
+            }
+            if(field < fieldStarts.length)
+                throw new IOException("missing fields in hyg_data line: " + new String(bytes, from, to - from,
+                        StandardCharsets.US_ASCII));
+        }
+
+        private boolean isEmpty(Id id) {
+            return fieldStarts[id.ordinal()] == fieldEnds[id.ordinal()];
+        }
+
+        private boolean is(Id id, String value) {
+            int start = fieldStarts[id.ordinal()];
+            if(fieldEnds[id.ordinal()] - start != value.length())
+                return false;
+            for(int i = 0; i < value.length(); ++i) {
+                if(bytes[start + i] != value.charAt(i))
+                    return false;
+            }
+            return true;
+        }
+
+        private String string(Id id) {
+            int start = fieldStarts[id.ordinal()];
+            return new String(bytes, start, fieldEnds[id.ordinal()] - start, StandardCharsets.US_ASCII);
+        }
+
+        private int parseInt(Id id) throws IOException {
+            int start = fieldStarts[id.ordinal()];
+            int end   = fieldEnds[id.ordinal()];
+            boolean negative = bytes[start] == '-';
+            int i = (negative || bytes[start] == '+') ? start + 1 : start;
+            if(i == end || end - i > 9)
+                return Integer.parseInt(string(id));
+
+            int value = 0;
+            for(; i < end; ++i) {
+                int digit = bytes[i] - '0';
+                if(digit < 0 || digit > 9)
+                    throw new IOException("invalid integer in hyg_data field " + id + ": " + string(id));
+                value = 10*value + digit;
+            }
+            return negative ? -value : value;
+        }
+
+        /*
+         * Reads the digits of the field as an integer mantissa and a decimal exponent
+         * When both are small enough, mantissa * 10^exponent is computed exactly with one correctly rounded
+         * operation, so the result is the same as Double.parseDouble, which is used in all the other cases
+         */
+        private double parseDouble(Id id) throws IOException {
+            int start = fieldStarts[id.ordinal()];
+            int end   = fieldEnds[id.ordinal()];
+            boolean negative = start < end && bytes[start] == '-';
+            int i = (negative || (start < end && bytes[start] == '+')) ? start + 1 : start;
+
+            long mantissa = 0;
+            int exponent  = 0;
+            int digits    = 0;
+            boolean point = false;
+            for(; i < end; ++i) {
+                byte b = bytes[i];
+                if(b >= '0' && b <= '9') {
+                    if(mantissa >= MAX_EXACT_MANTISSA / 10)
+                        return parseDoubleSlowly(id);
+                    mantissa = 10*mantissa + (b - '0');
+                    ++digits;
+                    if(point)
+                        --exponent;
+                } else if(b == '.' && !point) {
+                    point = true;
+                } else {
+                    // exponent, infinity, NaN or invalid number
+                    return parseDoubleSlowly(id);
+                }
+            }
+            if(digits == 0 || exponent < -(POWERS_OF_TEN.length - 1))
+                return parseDoubleSlowly(id);
+
+            double value = (double) mantissa / POWERS_OF_TEN[-exponent];
+            return negative ? -value : value;
+        }
+
+        private double parseDoubleSlowly(Id id) throws IOException {
+            int start = fieldStarts[id.ordinal()];
+            try {
+                // ISO_8859_1 copies the bytes without checking them, Double.parseDouble rejects non ASCII chars
+                return Double.parseDouble(new String(bytes, start, fieldEnds[id.ordinal()] - start,
+                        StandardCharsets.ISO_8859_1));
+            } catch(NumberFormatException e) {
+                throw new IOException("invalid number in hyg_data field " + id, e);
+            }
+        }
+    }
 
     //================================================================================================
 
@@ -1,17 +1,13 @@
 package ch.epfl.rigel.astronomy;
 
+import java.nio.DoubleBuffer;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 import ch.epfl.rigel.coordinates.CartesianCoordinates;
-import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
-import ch.epfl.rigel.coordinates.EquatorialToHorizontalConversion;
 import ch.epfl.rigel.coordinates.GeographicCoordinates;
 import ch.epfl.rigel.coordinates.HorizontalCoordinates;
 import ch.epfl.rigel.coordinates.StereographicProjection;
@@ -20,13 +16,18 @@ import ch.epfl.rigel.coordinates.StereographicProjection;
  * Represents a set of {@code CelestialObjects} projected on a plan
  * by a {@code StereographicProjection}
  * This is like a picture of the sky at a given time and place of observation
+ * The positions at this time and place are given by a {@code HorizontalSky},
+ * that can be shared by all the skies that only differ by their projection
  *
  * @author Augustin Allard (299918)
+ * @see HorizontalSky
  */
 public final class ObservedSky {
     
+    private final HorizontalSky horizontalSky;
     private final StarCatalogue catalog;
     private final StereographicProjection projection;
+    private final double limitingMagnitude;
 
     private final Sun sun;
     private final Moon moon;
@@ -36,7 +37,9 @@ public final class ObservedSky {
     private final double[] planetPointsRefs;
     private final double[] starPointsRefs;
 
-    private final Map<CelestialObject, CartesianCoordinates> skyObjects;
+    // sun, moon and planets, followed by the stars of the catalog in the points of skyPointsTree
+    private final List<CelestialObject> skyObjects;
+    private PlanePointsTree skyPointsTree;
 
     /**
      * @param obsTime the time of the observation
@@ -46,58 +49,81 @@ public final class ObservedSky {
      */
     public ObservedSky(ZonedDateTime obsTime, GeographicCoordinates obsPlace,
                 StereographicProjection projection, StarCatalogue catalog) {
+        this(new HorizontalSky(obsTime, obsPlace, catalog), projection);
+    }
+
+    /**
+     * Projects the given sky, without computing again the positions of the objects
+     * (ex: when only the center of the projection has changed)
+     *
+     * @param horizontalSky positions of the objects at the time and place of observation
+     * @param projection that will be used
+     */
+    public ObservedSky(HorizontalSky horizontalSky, StereographicProjection projection) {
+        this(horizontalSky, projection, Parallelism.defaultParallelism());
+    }
+
+    /**
+     * Projects the given sky, without computing again the positions of the objects
+     *
+     * @param horizontalSky positions of the objects at the time and place of observation
+     * @param projection that will be used
+     * @param parallelism used to project the stars
+     */
+    public ObservedSky(HorizontalSky horizontalSky, StereographicProjection projection, Parallelism parallelism) {
+        this(horizontalSky, projection, Double.POSITIVE_INFINITY, parallelism);
+    }
 
-        this.catalog    = catalog;
-        this.skyObjects = new HashMap<>();
-        this.planets    = new ArrayList<>();
+    /**
+     * Projects the stars of the given sky that are visible under the limiting magnitude,
+     * which are the first ones of the catalog since they are sorted by magnitude
+     * (the other stars have no point, are not drawn and cannot be found)
+     *
+     * @param horizontalSky positions of the objects at the time and place of observation
+     * @param projection that will be used
+     * @param limitingMagnitude the magnitude of the faintest projected stars
+     * @param parallelism used to project the stars
+     * @throws IllegalArgumentException if the limiting magnitude is NaN
+     */
+    public ObservedSky(HorizontalSky horizontalSky, StereographicProjection projection, double limitingMagnitude,
+                       Parallelism parallelism) throws IllegalArgumentException {
+
+        this.horizontalSky = horizontalSky;
+        this.limitingMagnitude = limitingMagnitude;
+        this.catalog    = horizontalSky.catalog();
+        this.skyObjects = new ArrayList<>();
         this.projection = projection;
-        double moment   = Epoch.J2010.daysUntil(obsTime);
-        
-        // create coordinates converters
-        EclipticToEquatorialConversion eclToEqu   = new EclipticToEquatorialConversion(obsTime);
-        EquatorialToHorizontalConversion equToHor = new EquatorialToHorizontalConversion(obsTime, obsPlace);
-        
-        List<PlanetModel> extraterrestrialModels = new ArrayList<>();
-        extraterrestrialModels.addAll(PlanetModel.ALL);
-        extraterrestrialModels.remove(PlanetModel.EARTH);
 
-        sun      = SunModel.SUN.at(moment, eclToEqu);
-        sunPoint = projection.apply(equToHor.apply(sun.equatorialPos()));
-        skyObjects.put(sun, sunPoint);
+        sun      = horizontalSky.sun();
+        sunPoint = projection.apply(horizontalSky.sunPosition());
+        skyObjects.add(sun);
         
-        moon      = MoonModel.MOON.at(moment, eclToEqu);
-        moonPoint = projection.apply(equToHor.apply(moon.equatorialPos()));
-        skyObjects.put(moon, moonPoint);
+        moon      = horizontalSky.moon();
+        moonPoint = projection.apply(horizontalSky.moonPosition());
+        skyObjects.add(moon);
         
         // to construct planetPointsRefs and starPointsRefs, each celestialObject take 2 cases, 
         // the first for the x coordinate and the follower for y coordinate
-        planetPointsRefs = new double[extraterrestrialModels.size()*2];
-        starPointsRefs   = new double[catalog.stars().size()*2];
-        CartesianCoordinates point; //use to fulfill the lists and tabs with coordinates of the celestialObjects
+        planets          = horizontalSky.planets();
+        planetPointsRefs = new double[planets.size()*2];
+        int starCount    = Math.min(horizontalSky.starCount(), catalog.starCountUpToMagnitude(limitingMagnitude));
+        starPointsRefs   = new double[starCount*2];
         int indexTab     = 0;
         
-        // construct planetPointsRefs and planets
-        for(PlanetModel planetModel: extraterrestrialModels) {
+        // construct planetPointsRefs
+        for(HorizontalCoordinates planetPosition: horizontalSky.planetPositions()) {
             
-            Planet planet = planetModel.at(moment, eclToEqu);
-            point         = projection.apply(equToHor.apply(planet.equatorialPos()));
+            CartesianCoordinates point = projection.apply(planetPosition);
             
-            skyObjects.put(planet, point);
-            planets.add(planet);
             planetPointsRefs[indexTab++] = point.x();
             planetPointsRefs[indexTab++] = point.y();
         }
-        indexTab = 0;
+        skyObjects.addAll(planets);
         
-        //construct starPointsRefs
-        for(Star star: catalog.stars()) {
-            
-            point = projection.apply(equToHor.apply(star.equatorialPos()));
-            
-            skyObjects.put(star, point);
-            starPointsRefs[indexTab++] = point.x();
-            starPointsRefs[indexTab++] = point.y();
-        }
+        //construct starPointsRefs from the directions of the stars, without creating any object
+        double[] starDirections = horizontalSky.starDirections();
+        parallelism.forEachRange(starCount,
+                (from, to) -> projection.applyToDirections(starDirections, starPointsRefs, from, to));
     }
 
     /**
@@ -110,25 +136,27 @@ public final class ObservedSky {
      * and {@code Optional.empty} if no enough closed objects have been found
      */
     public Optional<CelestialObject> objectClosestTo(CartesianCoordinates point, double maximalDistance) {
-        CelestialObject closestObject = null;
-        double actualBestDist         = maximalDistance;
-
-        for(CelestialObject p : skyObjects.keySet()) {
-            CartesianCoordinates c = skyObjects.get(p);
-
-            if(Math.abs(c.x() - point.x()) < actualBestDist   //make preliminary selection
-                    && Math.abs(c.y() - point.y()) < actualBestDist) {
-                
-                double distanceFromCurrentCelestialObject = point.distance(c);
-
-                if(distanceFromCurrentCelestialObject < actualBestDist) {
+        int closestIndex = skyPointsTree().closestTo(point.x(), point.y(), maximalDistance);
+        if(closestIndex < 0)
+            return Optional.empty();
+        return Optional.of(closestIndex < skyObjects.size()
+                ? skyObjects.get(closestIndex)
+                : stars().get(closestIndex - skyObjects.size()));
+    }
 
-                    actualBestDist = distanceFromCurrentCelestialObject;
-                    closestObject  = p;
-                }
-            }
+    // the tree is only built when an object is searched, most skies are only painted
+    private synchronized PlanePointsTree skyPointsTree() {
+        if(skyPointsTree == null) {
+            double[] skyPoints = new double[2*skyObjects.size() + starPointsRefs.length];
+            skyPoints[0] = sunPoint.x();
+            skyPoints[1] = sunPoint.y();
+            skyPoints[2] = moonPoint.x();
+            skyPoints[3] = moonPoint.y();
+            System.arraycopy(planetPointsRefs, 0, skyPoints, 4, planetPointsRefs.length);
+            System.arraycopy(starPointsRefs, 0, skyPoints, 4 + planetPointsRefs.length, starPointsRefs.length);
+            skyPointsTree = new PlanePointsTree(skyPoints);
         }
-        return Optional.ofNullable(closestObject);
+        return skyPointsTree;
     }
 
     public HorizontalCoordinates horizontalPointOf(CelestialObject object) throws  IllegalArgumentException {
@@ -136,16 +164,17 @@ public final class ObservedSky {
             return isVisible(sunPoint) ? projection.inverseApply(sunPoint) : null;
         if(object.name().equalsIgnoreCase("Lune"))
             return isVisible(moonPoint) ? projection.inverseApply(moonPoint) : null;
-        for(Planet p: planets) {
-            if(object.name().equalsIgnoreCase(p.name())) {
-                int i = planets.indexOf(p);
+        for(int i = 0; i < planets.size(); ++i) {
+            if(object.name().equalsIgnoreCase(planets.get(i).name())) {
                 CartesianCoordinates point = CartesianCoordinates.of(planetPointsRefs[2*i], planetPointsRefs[2*i + 1]);
                 return isVisible(point) ? projection.inverseApply(point) : null;
             }
         }
-        for(Star s: stars()) {
-            if(object == s) {
-                int i = stars().indexOf(s);
+        if(object instanceof Star) {
+            int i = catalog.indexOf((Star) object);
+            if(i >= 0) {
+                if(2*i >= starPointsRefs.length)
+                    return null;
                 CartesianCoordinates point = CartesianCoordinates.of(starPointsRefs[2*i], starPointsRefs[2*i + 1]);
                 return isVisible(point) ? projection.inverseApply(point) : null;
             }
@@ -168,19 +197,18 @@ public final class ObservedSky {
         if(name.equalsIgnoreCase("Lune"))
             return pointIfVisible(moonPoint);
         
-        for(Planet p: planets) {
-            if(p.name().equalsIgnoreCase(name)) {
-                int i = planets.indexOf(p);
+        for(int i = 0; i < planets.size(); ++i) {
+            if(planets.get(i).name().equalsIgnoreCase(name)) {
                 CartesianCoordinates point = CartesianCoordinates.of(planetPointsRefs[2*i], planetPointsRefs[2*i + 1]);
                 return pointIfVisible(point);
             }
         }
-        for(Star s: stars()) {
-            if(s.name().equalsIgnoreCase(name)) {
-                int i = stars().indexOf(s);
-                CartesianCoordinates point = CartesianCoordinates.of(starPointsRefs[2*i], starPointsRefs[2*i + 1]);
-                return pointIfVisible(point);
-            }
+        int i = catalog.indexOfStarNamed(name);
+        if(i >= 0) {
+            if(2*i >= starPointsRefs.length)
+                return Optional.empty();
+            CartesianCoordinates point = CartesianCoordinates.of(starPointsRefs[2*i], starPointsRefs[2*i + 1]);
+            return pointIfVisible(point);
         }
         throw new IllegalArgumentException("unknown object");
     }
@@ -208,6 +236,13 @@ public final class ObservedSky {
     
     //getters====================================================================================
 
+    /**
+     * @return the positions of the objects at the time and place of observation, before projection
+     */
+    public HorizontalSky horizontalSky() {
+        return horizontalSky;
+    }
+
     /**
      * @return the projection used for observation
      */
@@ -215,6 +250,13 @@ public final class ObservedSky {
         return projection; 
     }
 
+    /**
+     * @return the magnitude of the faintest projected stars
+     */
+    public double limitingMagnitude() {
+        return limitingMagnitude;
+    }
+
     /**
      * @return the point of the {@code StereographicProjection} plan
      * corresponding to the sun
@@ -240,12 +282,105 @@ public final class ObservedSky {
     }
 
     /**
-     * @return the planets points (abscissa and just after it ordinates) of the {@code StereographicProjection} plan
-     * corresponding to the 7 extraterrestrial planets
+     * @return the stars points (abscissa and just after it ordinates) of the {@code StereographicProjection} plan
+     * corresponding to the first stars of the catalog, visible under the limiting magnitude
      */
     public double[] starPointsRefs() {
         return starPointsRefs.clone();
     }
+
+    /**
+     * Read-only view of the planets points, in the same order as {@code planetPointsRefs()} but without copying them
+     * (each call gives a new view, positioned at 0, so it can be used by only one consumer)
+     *
+     * @return the planets points of the {@code StereographicProjection} plan, as a read-only buffer
+     */
+    public DoubleBuffer planetPoints() {
+        return DoubleBuffer.wrap(planetPointsRefs).asReadOnlyBuffer();
+    }
+
+    /**
+     * Read-only view of the stars points, in the same order as {@code starPointsRefs()} but without copying them
+     * (each call gives a new view, positioned at 0, so it can be used by only one consumer)
+     *
+     * @return the stars points of the {@code StereographicProjection} plan, as a read-only buffer
+     */
+    public DoubleBuffer starPoints() {
+        return DoubleBuffer.wrap(starPointsRefs).asReadOnlyBuffer();
+    }
+
+    // indexed access to the points, without copy nor object creation ===============================
+
+    /**
+     * @return the number of planets points (7)
+     */
+    public int planetCount() {
+        return planetPointsRefs.length/2;
+    }
+
+    /**
+     * @param index of the planet, in the order of {@code planets()}
+     * @return the abscissa of the planet on the {@code StereographicProjection} plan
+     * @throws IndexOutOfBoundsException if there is no planet at this index
+     */
+    public double planetX(int index) throws IndexOutOfBoundsException {
+        return planetPointsRefs[2*index];
+    }
+
+    /**
+     * @param index of the planet, in the order of {@code planets()}
+     * @return the ordinate of the planet on the {@code StereographicProjection} plan
+     * @throws IndexOutOfBoundsException if there is no planet at this index
+     */
+    public double planetY(int index) throws IndexOutOfBoundsException {
+        return planetPointsRefs[2*index + 1];
+    }
+
+    /**
+     * @param index of the planet, in the order of {@code planets()}
+     * @return true if the planet is strictly above the horizon
+     * @throws IndexOutOfBoundsException if there is no planet at this index
+     */
+    public boolean isPlanetAboveHorizon(int index) throws IndexOutOfBoundsException {
+        return horizontalSky.planetPositions().get(index).alt() > 0;
+    }
+
+    /**
+     * @return the number of stars points, that are the first stars of the catalog
+     * visible under the limiting magnitude
+     */
+    public int starCount() {
+        return starPointsRefs.length/2;
+    }
+
+    /**
+     * @param index of the star in the catalog
+     * @return the abscissa of the star on the {@code StereographicProjection} plan
+     * @throws IndexOutOfBoundsException if the star has no point (index not in [0, starCount()[)
+     */
+    public double starX(int index) throws IndexOutOfBoundsException {
+        return starPointsRefs[2*index];
+    }
+
+    /**
+     * @param index of the star in the catalog
+     * @return the ordinate of the star on the {@code StereographicProjection} plan
+     * @throws IndexOutOfBoundsException if the star has no point (index not in [0, starCount()[)
+     */
+    public double starY(int index) throws IndexOutOfBoundsException {
+        return starPointsRefs[2*index + 1];
+    }
+
+    /**
+     * @param index of the star in the catalog
+     * @return true if the star is strictly above the horizon
+     * @throws IndexOutOfBoundsException if the star has no point (index not in [0, starCount()[)
+     */
+    public boolean isStarAboveHorizon(int index) throws IndexOutOfBoundsException {
+        if(index >= starCount())
+            throw new IndexOutOfBoundsException(index);
+        return horizontalSky.isStarAboveHorizon(index);
+    }
     
     /**
      * Gives the star indexes forming the given asterism
@@ -283,7 +418,15 @@ public final class ObservedSky {
      * @return the 7 extraterrestrials planets of the SolarSystem in their state corresponding to the observation moment
      */
     public List<Planet> planets() {
-        return Collections.unmodifiableList(planets);
+        return planets;
+    }
+
+    /**
+     * @return the catalog containing the stars and asterisms of the sky,
+     * giving access to the stars characteristics by index without creating them
+     */
+    public StarCatalogue catalog() {
+        return catalog;
     }
 
     /**
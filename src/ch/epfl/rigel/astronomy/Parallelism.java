@@ -0,0 +1,146 @@
+package ch.epfl.rigel.astronomy;
+
+import static ch.epfl.rigel.Preconditions.checkArgument;
+
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Describes how a computation made independently on each index of a range (ex: the projection of each star)
+ * is shared between the threads of a {@code ForkJoinPool}
+ * The range is split in sub-ranges until they have at most {@code threshold} indexes,
+ * so ranges smaller than the threshold are computed sequentially in the calling thread
+ *
+ * @author Augustin ALLARD (299918)
+ * @see HorizontalSky
+ * @see ObservedSky
+ */
+public final class Parallelism {
+
+    /**
+     * Default number of indexes under which a range is not split
+     * (large enough for the bundled catalog to be computed sequentially)
+     */
+    public final static int DEFAULT_THRESHOLD = 16384;
+
+    /**
+     * Computes every range in the calling thread
+     */
+    public final static Parallelism SEQUENTIAL = new Parallelism(null, Integer.MAX_VALUE);
+
+    private static volatile Parallelism defaultParallelism = of(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    private Parallelism(ForkJoinPool pool, int threshold) {
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    /**
+     * @param pool the pool computing the sub-ranges
+     * @param threshold maximal number of indexes of a sub-range (must be strictly positive)
+     * @return a new {@code Parallelism} using the given pool and threshold
+     * @throws IllegalArgumentException if the threshold is not strictly positive
+     * @throws NullPointerException if the pool is null
+     */
+    public static Parallelism of(ForkJoinPool pool, int threshold) throws IllegalArgumentException {
+        checkArgument(threshold > 0);
+        return new Parallelism(Objects.requireNonNull(pool), threshold);
+    }
+
+    /**
+     * @return the {@code Parallelism} used when none is given (the common pool with the default threshold at start)
+     */
+    public static Parallelism defaultParallelism() {
+        return defaultParallelism;
+    }
+
+    /**
+     * @param parallelism the {@code Parallelism} to use when none is given
+     */
+    public static void setDefaultParallelism(Parallelism parallelism) {
+        defaultParallelism = Objects.requireNonNull(parallelism);
+    }
+
+    /**
+     * Apply the action on sub-ranges covering [0, count[, in parallel if count is larger than the threshold
+     * Returns when all the sub-ranges have been computed
+     *
+     * @param count number of indexes of the range
+     * @param action computation on a sub-range, that must only write data corresponding to its indexes
+     */
+    public void forEachRange(int count, RangeAction action) {
+        if(pool == null || count <= threshold)
+            action.apply(0, count);
+        else
+            pool.invoke(new RangeTask(action, 0, count, threshold));
+    }
+
+    /**
+     * Apply the action on each index of [0, count[ as a sub-range of its own, in parallel whatever the threshold
+     * (used when each index already represents a large computation, ex: the parsing of a chunk of a file)
+     * Returns when all the indexes have been computed
+     *
+     * @param count number of indexes
+     * @param action computation on a sub-range (of one index, except when computed sequentially),
+     *               that must only write data corresponding to its indexes
+     */
+    public void forEachChunk(int count, RangeAction action) {
+        if(pool == null || count <= 1)
+            action.apply(0, count);
+        else
+            pool.invoke(new RangeTask(action, 0, count, 1));
+    }
+
+    /**
+     * @return the maximal number of indexes of a sub-range
+     */
+    public int threshold() {
+        return threshold;
+    }
+
+    //================================================================================================
+
+    /**
+     * Computation made on the sub-range [from, to[
+     */
+    @FunctionalInterface
+    public interface RangeAction {
+
+        /**
+         * @param from first index of the sub-range
+         * @param to index after the last one of the sub-range
+         */
+        void apply(int from, int to);
+    }
+
+    private final static class RangeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final RangeAction action;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        private RangeTask(RangeAction action, int from, int to, int threshold) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if(to - from <= threshold) {
+                action.apply(from, to);
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new RangeTask(action, from, middle, threshold), new RangeTask(action, middle, to, threshold));
+            }
+        }
+    }
+}
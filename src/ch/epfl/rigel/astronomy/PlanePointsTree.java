@@ -0,0 +1,124 @@
+package ch.epfl.rigel.astronomy;
+
+/**
+ * Static 2-d tree over points of the {@code StereographicProjection} plan
+ * Used to find the point closest to a given position without scanning all the points
+ * (ex: the object under the mouse among all the objects of an {@code ObservedSky})
+ *
+ * The tree is implicit: it is stored as a permutation of the point indexes
+ * where each sub-range has its median at its middle, split alternatively on x and y
+ *
+ * @author Augustin ALLARD (299918)
+ */
+final class PlanePointsTree {
+
+    private final static int X_AXIS = 0;
+    private final static int Y_AXIS = 1;
+
+    private final double[] points;
+    private final int[] order;
+
+    private int bestIndex;
+    private double bestSquaredDistance;
+
+    /**
+     * @param points abscissa and just after it ordinate of each point (not copied, must not be modified)
+     */
+    PlanePointsTree(double[] points) {
+        this.points = points;
+        this.order  = new int[points.length / 2];
+        for(int i = 0; i < order.length; ++i) {
+            order[i] = i;
+        }
+        build(0, order.length, X_AXIS);
+    }
+
+    /**
+     * Gives the index of the point the closest to (x, y) if it is strictly closer than the maximal distance
+     *
+     * @param x abscissa of the searched position
+     * @param y ordinate of the searched position
+     * @param maximalDistance radius of search
+     * @return the index of the closest point or -1 if no point is in the search disc
+     */
+    synchronized int closestTo(double x, double y, double maximalDistance) {
+        bestIndex = -1;
+        bestSquaredDistance = maximalDistance * maximalDistance;
+        search(0, order.length, X_AXIS, x, y);
+        return bestIndex;
+    }
+
+    /* *************************************************************************
+     *                                                                         *
+     *                    Internal implementation stuff                        *
+     *                                                                         *
+     **************************************************************************/
+
+    private void build(int from, int to, int axis) {
+        if(to - from <= 1)
+            return;
+        int middle = (from + to) >>> 1;
+        select(from, to - 1, middle, axis);
+        build(from, middle, 1 - axis);
+        build(middle + 1, to, 1 - axis);
+    }
+
+    private void search(int from, int to, int axis, double x, double y) {
+        if(from >= to)
+            return;
+        int middle = (from + to) >>> 1;
+        int index  = order[middle];
+        double dx  = x - points[2*index];
+        double dy  = y - points[2*index + 1];
+        double squaredDistance = dx*dx + dy*dy;
+
+        if(squaredDistance < bestSquaredDistance) {
+            bestSquaredDistance = squaredDistance;
+            bestIndex = index;
+        }
+
+        double delta = (axis == X_AXIS) ? dx : dy;
+        if(delta < 0) {
+            search(from, middle, 1 - axis, x, y);
+            // NaN splits are not ordered, so both sides have to be visited
+            if(!(delta*delta >= bestSquaredDistance))
+                search(middle + 1, to, 1 - axis, x, y);
+        } else {
+            search(middle + 1, to, 1 - axis, x, y);
+            if(!(delta*delta >= bestSquaredDistance))
+                search(from, middle, 1 - axis, x, y);
+        }
+    }
+
+    // quick select: put at position k the point that would be there if order[left..right] was sorted on axis
+    private void select(int left, int right, int k, int axis) {
+        while(left < right) {
+            double pivot = coordinate(order[(left + right) >>> 1], axis);
+            int i = left;
+            int j = right;
+            while(i <= j) {
+                while(Double.compare(coordinate(order[i], axis), pivot) < 0)
+                    ++i;
+                while(Double.compare(coordinate(order[j], axis), pivot) > 0)
+                    --j;
+                if(i <= j) {
+                    int tmp  = order[i];
+                    order[i] = order[j];
+                    order[j] = tmp;
+                    ++i;
+                    --j;
+                }
+            }
+            if(k <= j)
+                right = j;
+            else if(k >= i)
+                left = i;
+            else
+                return;
+        }
+    }
+
+    private double coordinate(int index, int axis) {
+        return points[2*index + axis];
+    }
+}
@@ -1,6 +1,9 @@
 package ch.epfl.rigel.astronomy;
 
+import static ch.epfl.rigel.Preconditions.checkArgument;
+
 import java.util.List;
+import java.util.stream.Collectors;
 
 import ch.epfl.rigel.coordinates.EclipticCoordinates;
 import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
@@ -36,6 +39,16 @@ public enum PlanetModel implements  CelestialObjectModel<Planet> {
      */
     public static List<PlanetModel> ALL = List.of(values());
 
+    /**
+     * List of the planets observed from the Earth (all except the Earth), in the order of {@code ALL}
+     */
+    public static final List<PlanetModel> OBSERVED = ALL.stream()
+            .filter(planetModel -> planetModel != EARTH)
+            .collect(Collectors.toUnmodifiableList());
+
+    private final static double DAYS_FROM_J2000_TO_J2010 = Epoch.J2000.daysUntil(Epoch.J2010);
+    private final static double DAYS_PER_JULIAN_CENTURY = 36525;
+
     private final String name;
     private final double t;
     private final double eps;
@@ -90,7 +103,8 @@ public enum PlanetModel implements  CelestialObjectModel<Planet> {
      * @return trueAnomaly of the Planet in radians
      */
     private double trueAnomaly(double daysSinceJ2010) {
-        return meanAnomaly(daysSinceJ2010) + 2*e*Math.sin(meanAnomaly(daysSinceJ2010));
+        double meanAnomaly = meanAnomaly(daysSinceJ2010);
+        return meanAnomaly + 2*e*Math.sin(meanAnomaly);
     }
 
     /**
@@ -119,39 +133,152 @@ public enum PlanetModel implements  CelestialObjectModel<Planet> {
             throw new UnsupportedOperationException("We observe the Planets from the Earth so we don't care about its Coordinates");
         
         // PLANET INFO DEPENDING ON THE TIME
+        // (the orbital values of the planet and of the earth are computed only once)
+        double planetL = l(daysSinceJ2010);
+        double planetR = r(daysSinceJ2010);
+        double earthL  = EARTH.l(daysSinceJ2010);
+        double earthR  = EARTH.r(daysSinceJ2010);
         // ecliptic heliocentric latitude
-        double eclHelioLat = Math.asin(Math.sin(l(daysSinceJ2010)- omega)*Math.sin(i));
+        double eclHelioLat = Math.asin(Math.sin(planetL - omega)*Math.sin(i));
         // projection of the radius on ecliptic plan
-        double eclRadius = r(daysSinceJ2010)*Math.cos(eclHelioLat);
+        double eclRadius = planetR*Math.cos(eclHelioLat);
         // heliocentric longitude projected on ecliptic plan
-        double eclLong = Math.atan2(Math.sin(l(daysSinceJ2010) - omega)*Math.cos(i),
-                Math.cos(l(daysSinceJ2010) - omega)) + omega;
+        double eclLong = Math.atan2(Math.sin(planetL - omega)*Math.cos(i),
+                Math.cos(planetL - omega)) + omega;
         // ECLIPTIC COORDINATES
         double longitude = 0;
         if(this.a < EARTH.a) {
-            longitude = Math.atan2(eclRadius*Math.sin(EARTH.l(daysSinceJ2010) - eclLong),
-                             (EARTH.r(daysSinceJ2010) - eclRadius*Math.cos(EARTH.l(daysSinceJ2010) - eclLong)))
-                        + Angle.TAU/2 + EARTH.l(daysSinceJ2010);
+            longitude = Math.atan2(eclRadius*Math.sin(earthL - eclLong),
+                             (earthR - eclRadius*Math.cos(earthL - eclLong)))
+                        + Angle.TAU/2 + earthL;
         } else {
-            longitude = Math.atan2(EARTH.r(daysSinceJ2010)*Math.sin(eclLong - EARTH.l(daysSinceJ2010)),
-                            (eclRadius - EARTH.r(daysSinceJ2010)*Math.cos(eclLong - EARTH.l(daysSinceJ2010)))) + eclLong;
+            longitude = Math.atan2(earthR*Math.sin(eclLong - earthL),
+                            (eclRadius - earthR*Math.cos(eclLong - earthL))) + eclLong;
         }
         double latitude = Math.atan(eclRadius*Math.tan(eclHelioLat)*Math.sin(longitude - eclLong)
-                        /(EARTH.r(daysSinceJ2010)*Math.sin(eclLong - EARTH.l(daysSinceJ2010))));
+                        /(earthR*Math.sin(eclLong - earthL)));
 
         EclipticCoordinates position = EclipticCoordinates.of(Angle.normalizePositive(longitude), latitude);
 
         // ANGULAR SIZE AND MAGNITUDE
         // distance to earth
-        double p = Math.sqrt(Math.pow(EARTH.r(daysSinceJ2010),2) + Math.pow(r(daysSinceJ2010), 2)
-                - 2*EARTH.r(daysSinceJ2010)*r(daysSinceJ2010)*Math.cos(l(daysSinceJ2010)
-                - EARTH.l(daysSinceJ2010))*Math.cos(eclHelioLat));
+        double p = Math.sqrt(Math.pow(earthR,2) + Math.pow(planetR, 2)
+                - 2*earthR*planetR*Math.cos(planetL
+                - earthL)*Math.cos(eclHelioLat));
         // light portion of planet visible from earth
-        double phase = (1 + Math.cos(longitude - l(daysSinceJ2010)))/2;
+        double phase = (1 + Math.cos(longitude - planetL))/2;
         double angularSize = tet0/p;
-        double magnitude = V0 + 5*Math.log10(r(daysSinceJ2010)*p/Math.sqrt(phase));
+        double magnitude = V0 + 5*Math.log10(planetR*p/Math.sqrt(phase));
 
         return new Planet(this.name, eclipticToEquatorialConversion.apply(position), (float)angularSize, (float)magnitude,
                 (float)dMin, (float)dMax, (float)dAv);
     }
+
+    /**
+     * Computes the states of all the {@code OBSERVED} planets at many moments at once,
+     * in primitive arrays instead of {@code Planet} objects
+     * The values of the planet of index p in {@code OBSERVED} at the moment of index k
+     * are written at the index {@code p*daysSinceJ2010.length + k} of each output array
+     * (output arrays must have at least {@code OBSERVED.size()*daysSinceJ2010.length} cases)
+     * The terms of the orbit of the Earth and the obliquity of the ecliptic are computed once per moment,
+     * then each planet is computed in a loop over the moments without object creation
+     * (the only branch, on the kind of planet, goes the same way for all the moments)
+     *
+     * @param daysSinceJ2010 the moments of the observations
+     * @param ra receiving the right ascensions in [0, 2pi[
+     * @param dec receiving the declinations in [-pi/2, pi/2]
+     * @param angularSizes receiving the angular sizes in radians
+     * @param magnitudes receiving the magnitudes
+     * @throws IllegalArgumentException if an output array is too small
+     */
+    public static void atAll(double[] daysSinceJ2010, double[] ra, double[] dec,
+                             double[] angularSizes, double[] magnitudes) throws IllegalArgumentException {
+        atAll(daysSinceJ2010, ra, dec, angularSizes, magnitudes, Parallelism.SEQUENTIAL);
+    }
+
+    /**
+     * Same as {@link #atAll(double[], double[], double[], double[], double[])},
+     * with the moments shared in ranges computed according to the given {@code Parallelism}
+     *
+     * @param parallelism used to share the moments between threads
+     * @throws IllegalArgumentException if an output array is too small
+     */
+    public static void atAll(double[] daysSinceJ2010, double[] ra, double[] dec,
+                             double[] angularSizes, double[] magnitudes, Parallelism parallelism) throws IllegalArgumentException {
+        int count = daysSinceJ2010.length;
+        long outputLength = (long) OBSERVED.size()*count;
+        checkArgument(ra.length >= outputLength && dec.length >= outputLength
+                && angularSizes.length >= outputLength && magnitudes.length >= outputLength);
+        parallelism.forEachRange(count,
+                (from, to) -> atAll(daysSinceJ2010, from, to, ra, dec, angularSizes, magnitudes));
+    }
+
+    /* *************************************************************************
+     *                                                                         *
+     *                    Internal implementation stuff                        *
+     *                                                                         *
+     **************************************************************************/
+
+    private static void atAll(double[] days, int from, int to, double[] ra, double[] dec,
+                              double[] angularSizes, double[] magnitudes) {
+        int size = to - from;
+        // terms depending only on the moment, shared by all the planets
+        double[] earthL = new double[size];
+        double[] earthR = new double[size];
+        double[] sinEpsilon = new double[size];
+        double[] cosEpsilon = new double[size];
+        for(int k = 0; k < size; ++k) {
+            double d = days[from + k];
+            earthL[k] = EARTH.l(d);
+            earthR[k] = EARTH.r(d);
+            double epsilon = EclipticToEquatorialConversion.obliquity(
+                    (d + DAYS_FROM_J2000_TO_J2010)/DAYS_PER_JULIAN_CENTURY);
+            sinEpsilon[k] = Math.sin(epsilon);
+            cosEpsilon[k] = Math.cos(epsilon);
+        }
+
+        int count = days.length;
+        for(int p = 0; p < OBSERVED.size(); ++p)
+            OBSERVED.get(p).atRange(days, from, size, earthL, earthR, sinEpsilon, cosEpsilon,
+                    ra, dec, angularSizes, magnitudes, p*count + from);
+    }
+
+    // same computations as at() and EclipticToEquatorialConversion.apply(), for the moments of index in [from, from + size[
+    private void atRange(double[] days, int from, int size, double[] earthL, double[] earthR,
+                         double[] sinEpsilon, double[] cosEpsilon,
+                         double[] ra, double[] dec, double[] angularSizes, double[] magnitudes, int offset) {
+        // the kind of planet is the same for all the moments, so the branch is always taken the same way
+        boolean inferior = a < EARTH.a;
+        double sinI = Math.sin(i);
+        double cosI = Math.cos(i);
+        for(int k = 0; k < size; ++k) {
+            double trueAnomaly = trueAnomaly(days[from + k]);
+            double planetL = trueAnomaly + w;
+            double planetR = a*(1 - e*e) / (1 + e*Math.cos(trueAnomaly));
+            double sinNodeAngle = Math.sin(planetL - omega);
+            double eclHelioLat = Math.asin(sinNodeAngle*sinI);
+            double cosEclHelioLat = Math.cos(eclHelioLat);
+            double eclRadius = planetR*cosEclHelioLat;
+            double eclLong = Math.atan2(sinNodeAngle*cosI, Math.cos(planetL - omega)) + omega;
+            double longitude = inferior
+                    ? Math.atan2(eclRadius*Math.sin(earthL[k] - eclLong),
+                            (earthR[k] - eclRadius*Math.cos(earthL[k] - eclLong))) + Angle.TAU/2 + earthL[k]
+                    : Math.atan2(earthR[k]*Math.sin(eclLong - earthL[k]),
+                            (eclRadius - earthR[k]*Math.cos(eclLong - earthL[k]))) + eclLong;
+
+            double latitude = Math.atan(eclRadius*Math.tan(eclHelioLat)*Math.sin(longitude - eclLong)
+                    /(earthR[k]*Math.sin(eclLong - earthL[k])));
+            double lambda = Angle.normalizePositive(longitude);
+            double distance = Math.sqrt(earthR[k]*earthR[k] + planetR*planetR
+                    - 2*earthR[k]*planetR*Math.cos(planetL - earthL[k])*cosEclHelioLat);
+            double phase = (1 + Math.cos(longitude - planetL))/2;
+
+            double sinLambda = Math.sin(lambda);
+            double alpha = Math.atan2(sinLambda*cosEpsilon[k] - Math.tan(latitude)*sinEpsilon[k], Math.cos(lambda));
+            ra[offset + k]  = Angle.normalizePositive(alpha);
+            dec[offset + k] = Math.asin(Math.sin(latitude)*cosEpsilon[k] + Math.cos(latitude)*sinEpsilon[k]*sinLambda);
+            angularSizes[offset + k] = tet0/distance;
+            magnitudes[offset + k]   = V0 + 5*Math.log10(planetR*distance/Math.sqrt(phase));
+        }
+    }
 }
@@ -0,0 +1,428 @@
+package ch.epfl.rigel.astronomy;
+
+import static ch.epfl.rigel.Preconditions.checkArgument;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.coordinates.EquatorialToHorizontalConversion;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.math.Angle;
+
+/**
+ * Computes for a place of observation when the celestial objects rise above the horizon,
+ * cross the meridian (transit) and set below the horizon
+ * The events of a day are the first ones in the 24 hours following the start of the day
+ * An object rises or sets when its center reaches a standard altitude slightly under the horizon,
+ * that takes into account the atmospheric refraction (and the radius of the disc for the sun and the moon)
+ * The events of the stars are computed with a closed form since their equatorial positions are fixed,
+ * those of the sun, the moon and the planets are refined with the position of the object at each estimated event
+ *
+ * @author Augustin ALLARD (299918)
+ * @see SiderealTime
+ * @see EquatorialToHorizontalConversion
+ */
+public final class RiseTransitSet {
+
+    /**
+     * Standard altitude in radians of the stars and the planets (refraction only)
+     */
+    public final static double STAR_ALTITUDE = Angle.ofDeg(-0.5667);
+
+    /**
+     * Standard altitude in radians of the sun (refraction and radius of the disc)
+     */
+    public final static double SUN_ALTITUDE = Angle.ofDeg(-0.8333);
+
+    /**
+     * Standard altitude in radians of the moon (refraction, radius of the disc and mean parallax)
+     */
+    public final static double MOON_ALTITUDE = Angle.ofDeg(0.125);
+
+    private final static double HOURS_PER_DAY = 24;
+    private final static double NANOS_PER_HOUR = 3.6e12;
+    private final static double MILLIS_PER_HOUR = 3.6e6;
+    // angle in radians of which the sidereal time increases in one hour of solar time
+    private final static double SIDEREAL_RADIANS_PER_HOUR = Angle.ofHr(1.002737909);
+    // the refinement of moving objects stops when the event moves less than a second
+    private final static double HOURS_TOLERANCE = 1.0/3600;
+    private final static int MAX_ITERATIONS = 10;
+
+    private final GeographicCoordinates where;
+
+    /**
+     * @param where the place of observation
+     */
+    public RiseTransitSet(GeographicCoordinates where) {
+        this.where = where;
+    }
+
+    /**
+     * Gives the events of an object whose equatorial position does not change (ex: a star)
+     *
+     * @param position the equatorial position of the object
+     * @param standardAltitude the altitude in radians at which the object rises and sets
+     * @param dayStart the start of the day of the events
+     * @return the events of the object in the 24 hours following the start of the day
+     */
+    public Events of(EquatorialCoordinates position, double standardAltitude, ZonedDateTime dayStart) {
+        EquatorialToHorizontalConversion atStart = new EquatorialToHorizontalConversion(dayStart, where);
+        double hourAngle = hourAngleAtAltitude(atStart, position.dec(), standardAltitude);
+        double localSiderealTime = atStart.localSiderealTime();
+        return new Events(dayStart,
+                hoursUntil(position.ra() - hourAngle, localSiderealTime),
+                hoursUntil(position.ra(), localSiderealTime),
+                hoursUntil(position.ra() + hourAngle, localSiderealTime),
+                visibility(atStart, position.dec(), standardAltitude));
+    }
+
+    /**
+     * @param dayStart the start of the day of the events
+     * @return the events of the sun in the 24 hours following the start of the day
+     */
+    public Events ofSun(ZonedDateTime dayStart) {
+        return of(SunModel.SUN, SUN_ALTITUDE, dayStart);
+    }
+
+    /**
+     * @param dayStart the start of the day of the events
+     * @return the events of the moon in the 24 hours following the start of the day
+     */
+    public Events ofMoon(ZonedDateTime dayStart) {
+        return of(MoonModel.MOON, MOON_ALTITUDE, dayStart);
+    }
+
+    /**
+     * @param planet the model of the planet (must not be the Earth)
+     * @param dayStart the start of the day of the events
+     * @return the events of the planet in the 24 hours following the start of the day
+     * @throws IllegalArgumentException if the planet is the Earth (as {@code TrackGenerator})
+     */
+    public Events ofPlanet(PlanetModel planet, ZonedDateTime dayStart) throws IllegalArgumentException {
+        checkArgument(planet != PlanetModel.EARTH);
+        return of(planet, STAR_ALTITUDE, dayStart);
+    }
+
+    /**
+     * Gives the events of an object that moves on the celestial sphere
+     * Each event is first estimated with the position of the object at the start of the day,
+     * then computed again with the position of the object at the estimated event until it does not move anymore
+     *
+     * @param model the model giving the position of the object at each moment
+     * @param standardAltitude the altitude in radians at which the object rises and sets
+     * @param dayStart the start of the day of the events
+     * @return the events of the object in the 24 hours following the start of the day
+     */
+    public Events of(CelestialObjectModel<? extends CelestialObject> model, double standardAltitude,
+                     ZonedDateTime dayStart) {
+        EquatorialToHorizontalConversion atStart = new EquatorialToHorizontalConversion(dayStart, where);
+        double localSiderealTime = atStart.localSiderealTime();
+        EquatorialCoordinates startPosition = positionAt(model, dayStart, 0);
+        double startHourAngle = hourAngleAtAltitude(atStart, startPosition.dec(), standardAltitude);
+
+        double transit = refine(model, standardAltitude, dayStart, atStart, 0,
+                hoursUntil(startPosition.ra(), localSiderealTime));
+        EquatorialCoordinates transitPosition = positionAt(model, dayStart, Double.isNaN(transit) ? 0 : transit);
+        Visibility visibility = visibility(atStart, transitPosition.dec(), standardAltitude);
+        if(visibility != Visibility.RISES_AND_SETS || Double.isNaN(startHourAngle))
+            return new Events(dayStart, Double.NaN, transit, Double.NaN, visibility);
+
+        double rise = refine(model, standardAltitude, dayStart, atStart, -1,
+                hoursUntil(startPosition.ra() - startHourAngle, localSiderealTime));
+        double set  = refine(model, standardAltitude, dayStart, atStart, 1,
+                hoursUntil(startPosition.ra() + startHourAngle, localSiderealTime));
+        return new Events(dayStart, rise, transit, set, visibility);
+    }
+
+    /**
+     * Computes in one pass the events of all the stars of the catalog during several consecutive days
+     * The events of the star of index i in the catalog during the day k are found at the index
+     * {@code i*dayCount + k} of the arrays of the result (so the result uses 24 bytes per star and day)
+     *
+     * @param catalog containing the stars
+     * @param firstDayStart the start of the first day
+     * @param dayCount the number of days (must be strictly positive)
+     * @param parallelism used to share the stars between threads
+     * @return the events of the stars
+     * @throws IllegalArgumentException if the number of days is not strictly positive
+     * or if there are too many events of stars to be indexed by an int
+     */
+    public StarEvents ofStars(StarCatalogue catalog, ZonedDateTime firstDayStart, int dayCount,
+                              Parallelism parallelism) throws IllegalArgumentException {
+        int starCount = catalog.stars().size();
+        checkArgument(dayCount > 0 && (long) starCount*dayCount <= Integer.MAX_VALUE);
+        // the conversion only depends on the day, its sidereal time is computed once for all the stars
+        EquatorialToHorizontalConversion atFirstStart = new EquatorialToHorizontalConversion(firstDayStart, where);
+        double[] localSiderealTimes = new double[dayCount];
+        localSiderealTimes[0] = atFirstStart.localSiderealTime();
+        for(int k = 1; k < dayCount; ++k)
+            localSiderealTimes[k] = new EquatorialToHorizontalConversion(firstDayStart.plusDays(k), where)
+                    .localSiderealTime();
+
+        StarEvents events = new StarEvents(firstDayStart, starCount, dayCount);
+        double[] starsRa  = catalog.columns().ra();
+        double[] starsDec = catalog.columns().dec();
+        parallelism.forEachRange(starCount, (from, to) -> {
+            for(int i = from; i < to; ++i) {
+                // the hour angle at the horizon only depends on the latitude, not on the day
+                double hourAngle = hourAngleAtAltitude(atFirstStart, starsDec[i], STAR_ALTITUDE);
+                events.visibilities[i] = visibility(atFirstStart, starsDec[i], STAR_ALTITUDE);
+                for(int k = 0; k < dayCount; ++k) {
+                    int index = i*dayCount + k;
+                    events.rises[index]    = hoursUntil(starsRa[i] - hourAngle, localSiderealTimes[k]);
+                    events.transits[index] = hoursUntil(starsRa[i], localSiderealTimes[k]);
+                    events.sets[index]     = hoursUntil(starsRa[i] + hourAngle, localSiderealTimes[k]);
+                }
+            }
+        });
+        return events;
+    }
+
+    /**
+     * @return the place of observation
+     */
+    public GeographicCoordinates where() {
+        return where;
+    }
+
+    /* *************************************************************************
+     *                                                                         *
+     *                    Internal implementation stuff                        *
+     *                                                                         *
+     **************************************************************************/
+
+    // hour angle in [0, pi] at which an object of the given declination is at the altitude, NaN if it never is
+    private static double hourAngleAtAltitude(EquatorialToHorizontalConversion conversion, double dec,
+                                              double altitude) {
+        double cosOfHourAngle = conversion.cosOfHourAngleAtAltitude(dec, altitude);
+        return (cosOfHourAngle >= -1 && cosOfHourAngle <= 1) ? Math.acos(cosOfHourAngle) : Double.NaN;
+    }
+
+    private static Visibility visibility(EquatorialToHorizontalConversion conversion, double dec, double altitude) {
+        double cosOfHourAngle = conversion.cosOfHourAngleAtAltitude(dec, altitude);
+        if(cosOfHourAngle > 1)
+            return Visibility.ALWAYS_BELOW;
+        // also when the observer is at a pole and the object on the equator
+        return (cosOfHourAngle >= -1) ? Visibility.RISES_AND_SETS : Visibility.ALWAYS_ABOVE;
+    }
+
+    // first hours after the start of the day when the local sidereal time is equal to the angle (NaN if angle is NaN)
+    private static double hoursUntil(double siderealTime, double localSiderealTimeAtStart) {
+        return Angle.normalizePositive(siderealTime - localSiderealTimeAtStart) / SIDEREAL_RADIANS_PER_HOUR;
+    }
+
+    // side: -1 for the rise, 0 for the transit and 1 for the set
+    private static double refine(CelestialObjectModel<? extends CelestialObject> model, double standardAltitude,
+                                 ZonedDateTime dayStart, EquatorialToHorizontalConversion atStart, int side,
+                                 double hours) {
+        for(int iteration = 0; iteration < MAX_ITERATIONS && !Double.isNaN(hours); ++iteration) {
+            EquatorialCoordinates position = positionAt(model, dayStart, hours);
+            double hourAngle = (side == 0) ? 0 : hourAngleAtAltitude(atStart, position.dec(), standardAltitude);
+            double target = position.ra() + side*hourAngle;
+            double localSiderealTime = atStart.localSiderealTime() + hours*SIDEREAL_RADIANS_PER_HOUR;
+            // smallest correction, forward or backward
+            double correction = (Angle.normalizePositive(target - localSiderealTime + Math.PI) - Math.PI)
+                    / SIDEREAL_RADIANS_PER_HOUR;
+            hours += correction;
+            if(Math.abs(correction) < HOURS_TOLERANCE)
+                break;
+        }
+        return (hours >= 0 && hours < HOURS_PER_DAY) ? hours : Double.NaN;
+    }
+
+    private static EquatorialCoordinates positionAt(CelestialObjectModel<? extends CelestialObject> model,
+                                                    ZonedDateTime dayStart, double hours) {
+        long epochMillis = dayStart.toInstant().toEpochMilli() + Math.round(hours*MILLIS_PER_HOUR);
+        return model.at(Epoch.J2010.daysUntil(epochMillis), new EclipticToEquatorialConversion(epochMillis))
+                .equatorialPos();
+    }
+
+    //================================================================================================
+
+    /**
+     * Position of an object relatively to the horizon during a day
+     */
+    public enum Visibility {
+        RISES_AND_SETS, ALWAYS_ABOVE, ALWAYS_BELOW
+    }
+
+    /**
+     * Rise, transit and set of an object during a day, given in hours since the start of the day
+     * (NaN when the event does not happen in the day)
+     */
+    public static final class Events {
+
+        private final ZonedDateTime dayStart;
+        private final double rise;
+        private final double transit;
+        private final double set;
+        private final Visibility visibility;
+
+        private Events(ZonedDateTime dayStart, double rise, double transit, double set, Visibility visibility) {
+            this.dayStart   = dayStart;
+            this.rise       = rise;
+            this.transit    = transit;
+            this.set        = set;
+            this.visibility = visibility;
+        }
+
+        /**
+         * @return the moment of the rise if it happens in the day
+         */
+        public Optional<ZonedDateTime> rise() {
+            return momentOf(rise);
+        }
+
+        /**
+         * @return the moment of the transit if it happens in the day
+         */
+        public Optional<ZonedDateTime> transit() {
+            return momentOf(transit);
+        }
+
+        /**
+         * @return the moment of the set if it happens in the day
+         */
+        public Optional<ZonedDateTime> set() {
+            return momentOf(set);
+        }
+
+        /**
+         * @return the hours between the start of the day and the rise, NaN if it does not happen in the day
+         */
+        public double riseHours() {
+            return rise;
+        }
+
+        /**
+         * @return the hours between the start of the day and the transit, NaN if it does not happen in the day
+         */
+        public double transitHours() {
+            return transit;
+        }
+
+        /**
+         * @return the hours between the start of the day and the set, NaN if it does not happen in the day
+         */
+        public double setHours() {
+            return set;
+        }
+
+        /**
+         * @return the position of the object relatively to the horizon during the day
+         */
+        public Visibility visibility() {
+            return visibility;
+        }
+
+        /**
+         * @return the start of the day of the events
+         */
+        public ZonedDateTime dayStart() {
+            return dayStart;
+        }
+
+        private Optional<ZonedDateTime> momentOf(double hours) {
+            return Double.isNaN(hours)
+                    ? Optional.empty()
+                    : Optional.of(dayStart.plusNanos(Math.round(hours*NANOS_PER_HOUR)));
+        }
+    }
+
+    /**
+     * Rise, transit and set of all the stars of a catalog during several consecutive days,
+     * given in hours since the start of each day (NaN for the rise and the set of the stars that do not cross the horizon)
+     */
+    public static final class StarEvents {
+
+        private final ZonedDateTime firstDayStart;
+        private final int starCount;
+        private final int dayCount;
+        private final Visibility[] visibilities;
+        private final double[] rises;
+        private final double[] transits;
+        private final double[] sets;
+
+        private StarEvents(ZonedDateTime firstDayStart, int starCount, int dayCount) {
+            this.firstDayStart = firstDayStart;
+            this.starCount = starCount;
+            this.dayCount  = dayCount;
+            visibilities = new Visibility[starCount];
+            rises    = new double[starCount*dayCount];
+            transits = new double[starCount*dayCount];
+            sets     = new double[starCount*dayCount];
+        }
+
+        /**
+         * @param star index of the star in the catalog
+         * @param day index of the day since the first one
+         * @return the events of the star during the day
+         * @throws IndexOutOfBoundsException if the star or the day does not exist
+         */
+        public Events of(int star, int day) throws IndexOutOfBoundsException {
+            int index = index(star, day);
+            return new Events(firstDayStart.plusDays(day), rises[index], transits[index], sets[index], visibilities[star]);
+        }
+
+        /**
+         * @return the hours between the start of the day and the rise of the star, NaN if it does not cross the horizon
+         * @throws IndexOutOfBoundsException if the star or the day does not exist
+         */
+        public double riseHours(int star, int day) throws IndexOutOfBoundsException {
+            return rises[index(star, day)];
+        }
+
+        /**
+         * @return the hours between the start of the day and the transit of the star
+         * @throws IndexOutOfBoundsException if the star or the day does not exist
+         */
+        public double transitHours(int star, int day) throws IndexOutOfBoundsException {
+            return transits[index(star, day)];
+        }
+
+        /**
+         * @return the hours between the start of the day and the set of the star, NaN if it does not cross the horizon
+         * @throws IndexOutOfBoundsException if the star or the day does not exist
+         */
+        public double setHours(int star, int day) throws IndexOutOfBoundsException {
+            return sets[index(star, day)];
+        }
+
+        /**
+         * @return the position of the star relatively to the horizon (the same every day)
+         * @throws IndexOutOfBoundsException if the star does not exist
+         */
+        public Visibility visibility(int star) throws IndexOutOfBoundsException {
+            return visibilities[star];
+        }
+
+        /**
+         * @return the number of stars
+         */
+        public int starCount() {
+            return starCount;
+        }
+
+        /**
+         * @return the number of days
+         */
+        public int dayCount() {
+            return dayCount;
+        }
+
+        /**
+         * @return the start of the first day
+         */
+        public ZonedDateTime firstDayStart() {
+            return firstDayStart;
+        }
+
+        private int index(int star, int day) {
+            if(star < 0 || star >= starCount || day < 0 || day >= dayCount)
+                throw new IndexOutOfBoundsException("no events for star " + star + " at day " + day);
+            return star*dayCount + day;
+        }
+    }
+}
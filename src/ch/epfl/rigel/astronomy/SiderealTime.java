@@ -1,8 +1,6 @@
 package ch.epfl.rigel.astronomy;
 
-import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
-import java.time.temporal.ChronoUnit;
 
 import ch.epfl.rigel.coordinates.GeographicCoordinates;
 import ch.epfl.rigel.math.Angle;
@@ -18,6 +16,10 @@ public final class SiderealTime {
     
     private final static Polynomial POLYNOMIAL = Polynomial.of(0.000025862, 2400.051336, 6.697374558);
     private final static double MILI_SECONDS_PER_HOUR = 3.6e+6;
+    private final static long MILI_SECONDS_PER_DAY = 86_400_000L;
+    private final static double HOURS_PER_DAY = 24;
+    private final static double DAYS_PER_JULIAN_CENTURY = 36525;
+    private final static double JULIAN_DAY_OF_J2000 = 2451545.0;
     private final static double CONST_FOR_S1 = 1.002737909;
     
     private SiderealTime() {}
@@ -29,16 +31,38 @@ public final class SiderealTime {
      * @return the sidereal time of when at the greenwich time zone in radians between [0, 2pi[
      */
     public static double greenwich(ZonedDateTime when) {
-        ZonedDateTime greenwichWhen = when.withZoneSameInstant(ZoneOffset.UTC);
-        ZonedDateTime truncatedGreenwichWhen = greenwichWhen.truncatedTo(ChronoUnit.DAYS);
-        double jCentSinceJ2000 = Epoch.J2000.julianCenturiesUntil(truncatedGreenwichWhen);
-        double hoursSinceDayStart = truncatedGreenwichWhen.until(greenwichWhen, ChronoUnit.MILLIS) / MILI_SECONDS_PER_HOUR;
-        double S0 = POLYNOMIAL.at(jCentSinceJ2000) ;
-        double S1 = CONST_FOR_S1 * hoursSinceDayStart;
-        double Sg = Angle.ofHr(S0 + S1);
-        return Angle.normalizePositive(Sg);
+        return greenwich(when.toInstant().toEpochMilli());
     };
 
+    /**
+     * Same as {@code greenwich(ZonedDateTime)} for a date given as a number of milliseconds
+     * since 1970-01-01T00:00Z, without creating any object nor using the time-zone rules
+     *
+     * @param epochMillis the actual date from which we want the sidereal time
+     * @return the sidereal time of the date at the greenwich time zone in radians between [0, 2pi[
+     */
+    public static double greenwich(long epochMillis) {
+        long dayStartMillis = Math.floorDiv(epochMillis, MILI_SECONDS_PER_DAY) * MILI_SECONDS_PER_DAY;
+        double jCentSinceJ2000 = Epoch.J2000.julianCenturiesUntil(dayStartMillis);
+        double hoursSinceDayStart = (epochMillis - dayStartMillis) / MILI_SECONDS_PER_HOUR;
+        return greenwich(jCentSinceJ2000, hoursSinceDayStart);
+    }
+
+    /**
+     * Same as {@code greenwich(ZonedDateTime)} for a date given as a julian day
+     * (days since -4712-01-01T12:00 in the julian calendar), without creating any object
+     *
+     * @param julianDay the actual date from which we want the sidereal time
+     * @return the sidereal time of the date at the greenwich time zone in radians between [0, 2pi[
+     */
+    public static double greenwichOfJulianDay(double julianDay) {
+        // the julian days start at noon, the UTC days at midnight
+        double dayStart = Math.floor(julianDay - 0.5) + 0.5;
+        double jCentSinceJ2000 = (dayStart - JULIAN_DAY_OF_J2000) / DAYS_PER_JULIAN_CENTURY;
+        double hoursSinceDayStart = (julianDay - dayStart) * HOURS_PER_DAY;
+        return greenwich(jCentSinceJ2000, hoursSinceDayStart);
+    }
+
     /**
      * This calculates the local sidereal time at the given coordinates
      *
@@ -49,4 +73,24 @@ public final class SiderealTime {
     public static double local(ZonedDateTime when, GeographicCoordinates where) {
         return Angle.normalizePositive(greenwich(when) + where.lon());
     };
+
+    /**
+     * Same as {@code local(ZonedDateTime, GeographicCoordinates)} for a date given as a number of milliseconds
+     * since 1970-01-01T00:00Z, without creating any object nor using the time-zone rules
+     *
+     * @param epochMillis the actual date from which we want the sidereal time
+     * @param where the local coordinates of where the sidereal time will be computed
+     * @return the local sidereal time in radians between [0, 2pi[
+     */
+    public static double local(long epochMillis, GeographicCoordinates where) {
+        return Angle.normalizePositive(greenwich(epochMillis) + where.lon());
+    }
+
+    // sidereal time of a moment given by the start of its UTC day and the hours since
+    private static double greenwich(double jCentSinceJ2000, double hoursSinceDayStart) {
+        double S0 = POLYNOMIAL.at(jCentSinceJ2000) ;
+        double S1 = CONST_FOR_S1 * hoursSinceDayStart;
+        double Sg = Angle.ofHr(S0 + S1);
+        return Angle.normalizePositive(Sg);
+    }
 }
@@ -17,6 +17,9 @@ public final class Star extends CelestialObject {
     private final int hipparcosId;
     private final float c;
     private final static ClosedInterval RANGE_OF_MAGNITUDE = ClosedInterval.of(-0.5, 5.5);
+    // the color temperatures are rounded to multiples of 100 K, 1000 K having the step 0
+    private final static int SMALLEST_COLOR_TEMPERATURE = 1000;
+    private final static double COLOR_TEMPERATURE_STEP  = 100;
     private final int temperature;
     
     /**
@@ -30,11 +33,41 @@ public final class Star extends CelestialObject {
     public Star(int hipparcosId, String name, EquatorialCoordinates equatorialPos,
                 float magnitude, float colorIndex, float distance) throws IllegalArgumentException {
         super(name, equatorialPos, 0, magnitude, distance, distance, distance);
-        checkArgument(hipparcosId >= 0);
-        checkInInterval(RANGE_OF_MAGNITUDE, colorIndex);
+        checkCharacteristics(hipparcosId, colorIndex);
         this.hipparcosId = hipparcosId;
         c = colorIndex;
-        temperature = (int) Math.floor((1/(0.92*c + 1.7) + 1/(0.92*c + 0.62))*4600);
+        temperature = colorTemperatureOf(c);
+    }
+
+    /**
+     * Check the characteristics that a star must respect
+     * (also used to store stars without creating them)
+     *
+     * @throws IllegalArgumentException if the hipparcosId < 0 or the colorIndex is not in [-0.5, +5.5]
+     */
+    static void checkCharacteristics(int hipparcosId, float colorIndex) throws IllegalArgumentException {
+        checkArgument(hipparcosId >= 0);
+        checkInInterval(RANGE_OF_MAGNITUDE, colorIndex);
+    }
+
+    /**
+     * @param colorIndex of a star
+     * @return the colorTemperature in degree Kelvin of a star of the given color index
+     */
+    static int colorTemperatureOf(float colorIndex) {
+        return (int) Math.floor((1/(0.92*colorIndex + 1.7) + 1/(0.92*colorIndex + 0.62))*4600);
+    }
+
+    /**
+     * Gives the step of a color temperature, the only place where it is computed
+     * (used to precompute the step of each star, and to index the colors of {@code BlackBodyColor})
+     *
+     * @param temperature in degree Kelvin
+     * @return the index of the given temperature rounded to a multiple of 100 degrees, 1000 K having index 0
+     * @see ch.epfl.rigel.gui.BlackBodyColor#colorForTemperatureStep(int)
+     */
+    public static int colorTemperatureStepOf(int temperature) {
+        return (int) Math.round((temperature - SMALLEST_COLOR_TEMPERATURE) / COLOR_TEMPERATURE_STEP);
     }
     
     /**
@@ -44,6 +77,13 @@ public final class Star extends CelestialObject {
         return hipparcosId;
     }
 
+    /**
+     * @return the colorIndex of the star
+     */
+    float colorIndex() {
+        return c;
+    }
+
     /**
      * @return the colorTemperature of the star in degree Kelvin
      */
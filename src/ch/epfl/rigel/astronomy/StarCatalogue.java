@@ -4,11 +4,13 @@ import static ch.epfl.rigel.Preconditions.checkArgument;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 
@@ -21,6 +23,10 @@ import java.util.Set;
  *                 .loadFrom(starFileName, HygDatabaseLoader.INSTANCE)
  *                 .loadFrom(asterismFileName, AsterismLoader.INSTANCE).build()}
  *  returns a {@code StarCatalogue} containing all the objects corresponding to file data)
+ * The stars are stored column by column in primitive arrays that can be read by index,
+ * the {@code Star} objects are only created when they are accessed via {@code stars()}
+ * The stars are sorted by increasing magnitude (the brightest first), so the stars visible
+ * under a limiting magnitude are always the first ones (see {@code starCountUpToMagnitude})
  *
  * @author Alexis FAVRE (310552)
  * @author Augustin ALLARD (299918)
@@ -29,43 +35,63 @@ import java.util.Set;
  */
 public final class StarCatalogue {
 
-    private final List<Star> stars;
+    private final StarColumns stars;
+    private final List<Star> starsView;
     private final Map<Asterism, List<Integer>> starsIndexesOfAsterisms;
-    private final Map<Star, Integer> indexOfStars = new HashMap<>();
+    // star indexes of the edges of all the asterisms: the edge e goes from the star 2*e to the star 2*e + 1
+    private final int[] asterismEdges;
+    // index of the first star of each name (in lower case), built by the first search by name
+    private Map<String, Integer> starIndexesByName;
 
     /**
-     * @param my_stars {@code List} of the stars to be added
+     * @param my_stars {@code List} of the stars to be added (sorted by magnitude in the catalog)
      * @param my_asterisms {@code List} of the asterims to be added
      * @throws IllegalArgumentException if at least one star of an asterism is not given in the list of stars
      */
     public StarCatalogue(List<Star> my_stars, List<Asterism> my_asterisms) throws IllegalArgumentException {
-        stars = List.copyOf(my_stars);
+        this(columnsOf(my_stars), my_asterisms);
+    }
+
+    /**
+     * @param my_stars columns of the stars to be added (copied and sorted by magnitude)
+     * @param my_asterisms {@code List} of the asterims to be added
+     * @throws IllegalArgumentException if at least one star of an asterism is not given in the columns of stars
+     */
+    StarCatalogue(StarColumns my_stars, List<Asterism> my_asterisms) throws IllegalArgumentException {
+        stars     = my_stars.sortedByMagnitude();
+        starsView = stars.asList();
         List<Asterism> immutablesAsterisms = List.copyOf(my_asterisms);
         
         Map<Asterism, List<Integer>> starsIndexesOfAsterismsNotImmutable = new HashMap<>();
-        
-        //build map indexOfStars
-        Iterator<Star> starIterators = stars.iterator();
-        int indexOfStarInList = 0;
-        while(starIterators.hasNext()) {
-            indexOfStars.put(starIterators.next(), indexOfStarInList);
-            ++indexOfStarInList;
-        }
+        int edgeCount = 0;
         
         // build asterismsStarIndexesMapping
         for (Asterism a : immutablesAsterisms) {
-            // verify that a contains only stars in the catalog
-            checkArgument(stars.containsAll(a.stars()));
-
             // map the asterism to its list of stars indexes
             List<Integer> starIndexesOfA = new LinkedList<>();
             for (Star s : a.stars()) {
-                starIndexesOfA.add(indexOfStars.get(s));
+                // the stars of asterisms are among the stars already created, indexed by the first search
+                int index = stars.indexOf(s);
+                // verify that a contains only stars in the catalog
+                checkArgument(index >= 0);
+                starIndexesOfA.add(index);
             }
             
             starsIndexesOfAsterismsNotImmutable.put(a, List.copyOf(starIndexesOfA));
+            edgeCount += starIndexesOfA.size() - 1;
         }
         starsIndexesOfAsterisms = Map.copyOf(starsIndexesOfAsterismsNotImmutable);
+
+        // edges between the consecutive stars of each asterism, in the order of the given asterisms
+        asterismEdges = new int[2*edgeCount];
+        int e = 0;
+        for (Asterism a : immutablesAsterisms) {
+            List<Integer> indexes = starsIndexesOfAsterisms.get(a);
+            for (int i = 1; i < indexes.size(); ++i) {
+                asterismEdges[e++] = indexes.get(i - 1);
+                asterismEdges[e++] = indexes.get(i);
+            }
+        }
     }
 
     /**
@@ -81,10 +107,142 @@ public final class StarCatalogue {
     }
 
     /**
-     * @return stars of the catalog
+     * @return the star indexes of the edges of all the asterisms, each edge linking two consecutive stars
+     * of an asterism: the edge e goes from the star at 2*e to the star at 2*e + 1 (copy)
+     */
+    public int[] asterismEdges() {
+        return asterismEdges.clone();
+    }
+
+    /**
+     * @return the number of edges of all the asterisms
+     */
+    public int asterismEdgeCount() {
+        return asterismEdges.length/2;
+    }
+
+    /**
+     * @param edge index of the edge, in [0, asterismEdgeCount()[
+     * @return the index of the star where the edge begins
+     * @throws IndexOutOfBoundsException if there is no edge at this index
+     */
+    public int asterismEdgeFrom(int edge) throws IndexOutOfBoundsException {
+        return asterismEdges[2*edge];
+    }
+
+    /**
+     * @param edge index of the edge, in [0, asterismEdgeCount()[
+     * @return the index of the star where the edge ends
+     * @throws IndexOutOfBoundsException if there is no edge at this index
+     */
+    public int asterismEdgeTo(int edge) throws IndexOutOfBoundsException {
+        return asterismEdges[2*edge + 1];
+    }
+
+    /**
+     * @return stars of the catalog as an unmodifiable {@code List} sorted by increasing magnitude,
+     * each {@code Star} being created the first time it is accessed
      */
     public List<Star> stars() {
-        return stars;
+        return starsView;
+    }
+
+    /**
+     * Gives the number of stars whose magnitude is lower or equal to the limiting magnitude,
+     * which are the stars of index 0 to this number (excluded) since the stars are sorted by magnitude
+     *
+     * @param limitingMagnitude the magnitude of the faintest visible stars ({@code Double.POSITIVE_INFINITY} for all)
+     * @return the number of stars visible under the limiting magnitude
+     * @throws IllegalArgumentException if the limiting magnitude is NaN
+     */
+    public int starCountUpToMagnitude(double limitingMagnitude) throws IllegalArgumentException {
+        checkArgument(!Double.isNaN(limitingMagnitude));
+        float[] magnitudes = stars.magnitudes();
+        int low  = 0;
+        int high = stars.size();
+        // the first index with a magnitude greater than the limit is in [low, high]
+        while(low < high) {
+            int middle = (low + high) >>> 1;
+            if(magnitudes[middle] <= limitingMagnitude)
+                low = middle + 1;
+            else
+                high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * @param index of the star in {@code stars()}
+     * @return the right ascension of the star in radians
+     */
+    public double ra(int index) {
+        return stars.ra()[checkIndex(index)];
+    }
+
+    /**
+     * @param index of the star in {@code stars()}
+     * @return the declination of the star in radians
+     */
+    public double dec(int index) {
+        return stars.dec()[checkIndex(index)];
+    }
+
+    /**
+     * @param index of the star in {@code stars()}
+     * @return the magnitude of the star
+     */
+    public float magnitude(int index) {
+        return stars.magnitudes()[checkIndex(index)];
+    }
+
+    /**
+     * @param index of the star in {@code stars()}
+     * @return the colorTemperature of the star in degree Kelvin
+     */
+    public int colorTemperature(int index) {
+        return stars.colorTemperatures()[checkIndex(index)];
+    }
+
+    /**
+     * Gives the color temperature of the star rounded to a multiple of 100 degrees, as an index from 0 for 1000 K
+     * (computed once when the catalog is built, to color the stars without any computation)
+     *
+     * @param index of the star in {@code stars()}
+     * @return the index of the rounded color temperature of the star
+     * @see ch.epfl.rigel.gui.BlackBodyColor#colorForTemperatureStep(int)
+     */
+    public int colorTemperatureStep(int index) {
+        return stars.colorTemperatureSteps()[checkIndex(index)];
+    }
+
+    /**
+     * @param index of the star in {@code stars()}
+     * @return the hipparcosId of the star
+     */
+    public int hipparcosId(int index) {
+        return stars.hipparcosIds()[checkIndex(index)];
+    }
+
+    /**
+     * Gives the index of the given star in {@code stars()}, without going through the stars
+     *
+     * @param star of which we want the index (compared by identity)
+     * @return the index of the star or -1 if it is not in {@code this}
+     */
+    public int indexOf(Star star) {
+        return stars.indexOf(star);
+    }
+
+    /**
+     * Gives the index of the brightest star of the given name, ignoring the case, without going through the stars
+     * (the names are indexed the first time a star is searched by name)
+     *
+     * @param name of the star
+     * @return the index of the star in {@code stars()} or -1 if no star has this name
+     */
+    public int indexOfStarNamed(String name) {
+        Integer index = starIndexesByName().get(name.toLowerCase(Locale.ROOT));
+        return (index != null) ? index : -1;
     }
 
     /**
@@ -95,6 +253,39 @@ public final class StarCatalogue {
     }
 
 
+    /**
+     * @return the columns of the stars, read directly by the computations on all the stars
+     */
+    StarColumns columns() {
+        return stars;
+    }
+
+    private synchronized Map<String, Integer> starIndexesByName() {
+        if(starIndexesByName == null) {
+            Map<String, Integer> indexes = new HashMap<>();
+            String[] names = stars.names();
+            for(int i = 0; i < stars.size(); ++i)
+                indexes.putIfAbsent(names[i].toLowerCase(Locale.ROOT), i);
+            starIndexesByName = indexes;
+        }
+        return starIndexesByName;
+    }
+
+    // columns have exactly the size of the catalog but the stars index must be checked for the accessors by index
+    private int checkIndex(int index) {
+        if(index < 0 || index >= stars.size())
+            throw new IndexOutOfBoundsException("no star at index " + index);
+        return index;
+    }
+
+    private static StarColumns columnsOf(List<Star> stars) {
+        StarColumns columns = new StarColumns(stars.size());
+        for(Star s: stars) {
+            columns.add(s);
+        }
+        return columns;
+    }
+
     //================================================================================================
     
     /**
@@ -104,11 +295,11 @@ public final class StarCatalogue {
      */
     public final static class Builder {
 
-        private List<Star> stars;
+        private StarColumns stars;
         private List<Asterism> asterisms;
         
         public Builder() {
-            this.stars     = new LinkedList<Star>();
+            this.stars     = new StarColumns();
             this.asterisms = new LinkedList<Asterism>();
         }
 
@@ -126,6 +317,20 @@ public final class StarCatalogue {
             return this;
         }
 
+        /**
+         * Load the objects corresponding to the file content in the builder {@code this} via the loader
+         * (the loader can read the file in a more efficient way than a stream, ex: by mapping it in memory)
+         *
+         * @param path of the file containing stars or asterisms information to be loaded
+         * @param loader corresponding to the type of data to be loaded
+         * @return {@code this} i.e the loaded builder
+         * @throws IOException if the loader could not load the data from the file correctly
+         */
+        public Builder loadFrom(Path path, Loader loader) throws IOException {
+            loader.load(path, this);
+            return this;
+        }
+
         /**
          * @return a new StarCatalogue with the properties of the builder {@code this}
          */
@@ -143,6 +348,26 @@ public final class StarCatalogue {
             return this;
         }
 
+        /**
+         * Add a star with the given characteristics to {@code this} (catalog in construction)
+         * without creating the {@code Star} object, that will only be created if it is accessed
+         *
+         * @param hipparcosId of the Star (must be positive or null)
+         * @param name of the Star
+         * @param ra right ascension of the Star in radians (must be in [0, 2Pi[)
+         * @param dec declination of the Star in radians (must be in [-Pi/2, Pi/2])
+         * @param magnitude of the Star
+         * @param colorIndex of the Star (must be in[-0.5, +5.5])
+         * @param distance of the Star in light years (-1 if unknown)
+         * @return {@code this} the builder
+         * @throws IllegalArgumentException if one of the characteristics is not valid
+         */
+        public Builder addStar(int hipparcosId, String name, double ra, double dec,
+                               float magnitude, float colorIndex, float distance) throws IllegalArgumentException {
+            stars.add(hipparcosId, name, ra, dec, magnitude, colorIndex, distance);
+            return this;
+        }
+
         /**
          * Add the given asterism to {@code this} (catalog in construction)
          * @param asterism to be added
@@ -154,10 +379,17 @@ public final class StarCatalogue {
         }
         
         /**
-         * @return unmodifiable view of the stars in the builder
+         * @return unmodifiable view of the stars in the builder (each star is created when accessed)
          */
         public List<Star> stars(){
-            return Collections.unmodifiableList(stars);
+            return stars.asList();
+        }
+
+        /**
+         * @return the columns of the stars in the builder
+         */
+        StarColumns starColumns() {
+            return stars;
         }
         
         /**
@@ -185,5 +417,20 @@ public final class StarCatalogue {
          * @throws IOException if the loader could not load the data from the stream correctly
          */
         void load(InputStream inputStream, Builder builder) throws IOException;
+
+        /**
+         * Load the objects where the type corresponds to the file content
+         * and add them to the given {@code StarCatalogue.Builder}
+         * By default the file is read as a stream
+         *
+         * @param path of the file containing data to create the objects
+         * @param builder receiving the objects
+         * @throws IOException if the loader could not load the data from the file correctly
+         */
+        default void load(Path path, Builder builder) throws IOException {
+            try(InputStream inputStream = Files.newInputStream(path)) {
+                load(inputStream, builder);
+            }
+        }
     }
 }
@@ -0,0 +1,339 @@
+package ch.epfl.rigel.astronomy;
+
+import static ch.epfl.rigel.Preconditions.checkInInterval;
+import static ch.epfl.rigel.math.ClosedInterval.CSymmetricInterOfSizePi;
+import static ch.epfl.rigel.math.RightOpenInterval.ROInter_0To2Pi;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+
+/**
+ * Growable set of stars stored column by column in primitive arrays
+ * (one array per characteristic, the star of index i being made of the i-th case of each array)
+ * The {@code Star} objects are only created when they are asked, and then always the same instance is given
+ * Used by {@code StarCatalogue} and its {@code Builder} to hold large catalogs with a small memory footprint
+ *
+ * @author Augustin ALLARD (299918)
+ */
+final class StarColumns {
+
+    private final static int DEFAULT_CAPACITY = 1024;
+
+    private int size;
+    private int[] hipparcosIds;
+    private String[] names;
+    private double[] ra;
+    private double[] dec;
+    private float[] magnitudes;
+    private float[] colorIndexes;
+    private float[] distances;
+    private int[] colorTemperatures;
+    private int[] colorTemperatureSteps;
+    private Star[] views;
+    // index of each created star, built by the first search and then kept up to date
+    private Map<Star, Integer> viewIndexes;
+
+    StarColumns() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    StarColumns(int capacity) {
+        hipparcosIds      = new int[capacity];
+        names             = new String[capacity];
+        ra                = new double[capacity];
+        dec               = new double[capacity];
+        magnitudes        = new float[capacity];
+        colorIndexes      = new float[capacity];
+        distances         = new float[capacity];
+        colorTemperatures = new int[capacity];
+        colorTemperatureSteps = new int[capacity];
+        views             = new Star[capacity];
+    }
+
+    /**
+     * Add the given star, that will be the instance given for its index
+     *
+     * @param star to be added
+     */
+    void add(Star star) {
+        EquatorialCoordinates position = star.equatorialPos();
+        add(star.hipparcosId(), star.name(), position.ra(), position.dec(), (float) star.magnitude(),
+                star.colorIndex(), (float) star.distances()[0], star);
+    }
+
+    /**
+     * Add a star with the given characteristics without creating it
+     *
+     * @throws IllegalArgumentException if the characteristics are not valid for a {@code Star}
+     * @see Star#Star(int, String, EquatorialCoordinates, float, float, float)
+     */
+    void add(int hipparcosId, String name, double starRa, double starDec,
+             float magnitude, float colorIndex, float distance) throws IllegalArgumentException {
+        Star.checkCharacteristics(hipparcosId, colorIndex);
+        checkInInterval(ROInter_0To2Pi, starRa);
+        checkInInterval(CSymmetricInterOfSizePi, starDec);
+        add(hipparcosId, name, starRa, starDec, magnitude, colorIndex, distance, null);
+    }
+
+    /**
+     * Add all the stars of the given set after those of {@code this}, in their order
+     * (the stars already created in {@code other} are the instances given for their new indexes)
+     *
+     * @param other the stars to be added
+     */
+    void addAll(StarColumns other) {
+        StarColumns added = other.trimmedCopy();
+        synchronized(this) {
+            if(size + added.size > ra.length)
+                grow(size + added.size);
+            System.arraycopy(added.hipparcosIds,      0, hipparcosIds,      size, added.size);
+            System.arraycopy(added.names,             0, names,             size, added.size);
+            System.arraycopy(added.ra,                0, ra,                size, added.size);
+            System.arraycopy(added.dec,               0, dec,               size, added.size);
+            System.arraycopy(added.magnitudes,        0, magnitudes,        size, added.size);
+            System.arraycopy(added.colorIndexes,      0, colorIndexes,      size, added.size);
+            System.arraycopy(added.distances,         0, distances,         size, added.size);
+            System.arraycopy(added.colorTemperatures, 0, colorTemperatures, size, added.size);
+            System.arraycopy(added.colorTemperatureSteps, 0, colorTemperatureSteps, size, added.size);
+            System.arraycopy(added.views,             0, views,             size, added.size);
+            if(viewIndexes != null) {
+                for(int i = 0; i < added.size; ++i)
+                    indexView(added.views[i], size + i);
+            }
+            size += added.size;
+        }
+    }
+
+    /**
+     * @return a copy of {@code this} where the arrays have exactly the size of the set
+     */
+    StarColumns trimmedCopy() {
+        StarColumns copy = new StarColumns(0);
+        copy.size              = size;
+        copy.hipparcosIds      = Arrays.copyOf(hipparcosIds, size);
+        copy.names             = Arrays.copyOf(names, size);
+        copy.ra                = Arrays.copyOf(ra, size);
+        copy.dec               = Arrays.copyOf(dec, size);
+        copy.magnitudes        = Arrays.copyOf(magnitudes, size);
+        copy.colorIndexes      = Arrays.copyOf(colorIndexes, size);
+        copy.distances         = Arrays.copyOf(distances, size);
+        copy.colorTemperatures = Arrays.copyOf(colorTemperatures, size);
+        copy.colorTemperatureSteps = Arrays.copyOf(colorTemperatureSteps, size);
+        synchronized(this) {
+            copy.views = Arrays.copyOf(views, size);
+        }
+        return copy;
+    }
+
+    /**
+     * @return a copy of {@code this} where the arrays have exactly the size of the set
+     * and the stars are sorted by increasing magnitude (stars of same magnitude are kept in their order)
+     */
+    StarColumns sortedByMagnitude() {
+        StarColumns copy = trimmedCopy();
+        // sort keys: magnitude as an int ordered like the floats in the high bits, index in the low bits
+        long[] keys = new long[size];
+        for(int i = 0; i < size; ++i) {
+            int bits = Float.floatToIntBits(copy.magnitudes[i]);
+            bits ^= (bits >> 31) & Integer.MAX_VALUE;
+            keys[i] = ((long) bits << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        StarColumns sorted = new StarColumns(size);
+        for(long key: keys) {
+            int i = (int) key;
+            sorted.add(copy.hipparcosIds[i], copy.names[i], copy.ra[i], copy.dec[i], copy.magnitudes[i],
+                    copy.colorIndexes[i], copy.distances[i], copy.views[i]);
+        }
+        return sorted;
+    }
+
+    /**
+     * Gives the star of the given index, created the first time it is asked
+     *
+     * @param index of the star
+     * @return always the same {@code Star} instance for a given index
+     * @throws IndexOutOfBoundsException if there is no star at this index
+     */
+    Star star(int index) {
+        Star star = views[checkIndex(index)];
+        // the fields of a star are final, so a non null instance read without lock is complete
+        return (star != null) ? star : createStar(index);
+    }
+
+    /**
+     * @return the star of the given index if it has already been created, {@code null} otherwise
+     */
+    synchronized Star createdStar(int index) {
+        return views[checkIndex(index)];
+    }
+
+    /**
+     * Gives the index of the given star (compared by identity), without going through the stars
+     * (the stars created are indexed the first time a star is searched)
+     *
+     * @param star of which we want the index
+     * @return the index of the star or -1 if it is not in {@code this}
+     */
+    synchronized int indexOf(Star star) {
+        if(viewIndexes == null) {
+            viewIndexes = new IdentityHashMap<>();
+            for(int i = 0; i < size; ++i)
+                indexView(views[i], i);
+        }
+        Integer index = viewIndexes.get(star);
+        return (index != null) ? index : -1;
+    }
+
+    /**
+     * @return an unmodifiable {@code List} view of the stars, created when accessed
+     */
+    List<Star> asList() {
+        return new StarList();
+    }
+
+    // getters ======================================================================================
+
+    int size() {
+        return size;
+    }
+
+    int hipparcosId(int index) {
+        return hipparcosIds[checkIndex(index)];
+    }
+
+    String name(int index) {
+        return names[checkIndex(index)];
+    }
+
+    // the arrays are given without copy, they must not be modified and are only valid on [0, size()[
+
+    double[] ra() {
+        return ra;
+    }
+
+    double[] dec() {
+        return dec;
+    }
+
+    float[] magnitudes() {
+        return magnitudes;
+    }
+
+    int[] colorTemperatures() {
+        return colorTemperatures;
+    }
+
+    int[] colorTemperatureSteps() {
+        return colorTemperatureSteps;
+    }
+
+    int[] hipparcosIds() {
+        return hipparcosIds;
+    }
+
+    String[] names() {
+        return names;
+    }
+
+    float[] colorIndexes() {
+        return colorIndexes;
+    }
+
+    float[] distances() {
+        return distances;
+    }
+
+    /* *************************************************************************
+     *                                                                         *
+     *                    Internal implementation stuff                        *
+     *                                                                         *
+     **************************************************************************/
+
+    private synchronized void add(int hipparcosId, String name, double starRa, double starDec,
+                                  float magnitude, float colorIndex, float distance, Star view) {
+        if(size == ra.length)
+            grow(size + 1);
+        hipparcosIds[size]      = hipparcosId;
+        names[size]             = name;
+        ra[size]                = starRa;
+        dec[size]               = starDec;
+        magnitudes[size]        = magnitude;
+        colorIndexes[size]      = colorIndex;
+        distances[size]         = distance;
+        colorTemperatures[size] = Star.colorTemperatureOf(colorIndex);
+        colorTemperatureSteps[size] = Star.colorTemperatureStepOf(colorTemperatures[size]);
+        views[size]             = view;
+        if(viewIndexes != null)
+            indexView(view, size);
+        ++size;
+    }
+
+    private void grow(int minimalCapacity) {
+        int capacity = Math.max(minimalCapacity, Math.max(DEFAULT_CAPACITY, 2*ra.length));
+        hipparcosIds      = Arrays.copyOf(hipparcosIds, capacity);
+        names             = Arrays.copyOf(names, capacity);
+        ra                = Arrays.copyOf(ra, capacity);
+        dec               = Arrays.copyOf(dec, capacity);
+        magnitudes        = Arrays.copyOf(magnitudes, capacity);
+        colorIndexes      = Arrays.copyOf(colorIndexes, capacity);
+        distances         = Arrays.copyOf(distances, capacity);
+        colorTemperatures = Arrays.copyOf(colorTemperatures, capacity);
+        colorTemperatureSteps = Arrays.copyOf(colorTemperatureSteps, capacity);
+        views             = Arrays.copyOf(views, capacity);
+    }
+
+    private synchronized Star createStar(int index) {
+        if(views[index] == null) {
+            views[index] = new Star(hipparcosIds[index], names[index], EquatorialCoordinates.of(ra[index], dec[index]),
+                    magnitudes[index], colorIndexes[index], distances[index]);
+            if(viewIndexes != null)
+                indexView(views[index], index);
+        }
+        return views[index];
+    }
+
+    // a star given several times keeps its first index, as found by going through the stars
+    private void indexView(Star view, int index) {
+        if(view != null)
+            viewIndexes.putIfAbsent(view, index);
+    }
+
+    private int checkIndex(int index) {
+        if(index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("no star at index " + index);
+        return index;
+    }
+
+    //================================================================================================
+
+    private final class StarList extends AbstractList<Star> implements RandomAccess {
+
+        @Override
+        public Star get(int index) {
+            return star(index);
+        }
+
+        @Override
+        public int size() {
+            return StarColumns.this.size();
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            return (o instanceof Star) ? StarColumns.this.indexOf((Star) o) : -1;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return indexOf(o) >= 0;
+        }
+    }
+}
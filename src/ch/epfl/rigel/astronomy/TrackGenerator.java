@@ -0,0 +1,277 @@
+package ch.epfl.rigel.astronomy;
+
+import static ch.epfl.rigel.Preconditions.checkArgument;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import ch.epfl.rigel.coordinates.EclipticToEquatorialConversion;
+import ch.epfl.rigel.coordinates.EquatorialCoordinates;
+import ch.epfl.rigel.coordinates.EquatorialToHorizontalConversion;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+
+/**
+ * Generates the tracks of some objects in the sky of an observer, by walking a time range at a fixed step
+ * and giving at each moment the horizontal positions of the objects
+ * Only the given objects are computed (no {@code ObservedSky} nor projection) and the moments are computed
+ * when they are consumed, so the memory used does not depend on the length of the range
+ * The moments of a range are computed in milliseconds from the start, their dates are only created if asked
+ * The objects are the moving ones given by their models (sun, moon, planets), followed by the fixed ones
+ * given by their equatorial positions (ex: stars), in this order in each sample
+ *
+ * @author Augustin ALLARD (299918)
+ * @see RiseTransitSet
+ */
+public final class TrackGenerator {
+
+    private final GeographicCoordinates where;
+    private final List<CelestialObjectModel<? extends CelestialObject>> models;
+    private final double[] fixedRa;
+    private final double[] fixedDec;
+
+    /**
+     * @param where the place of observation
+     * @param models the models of the moving objects (must not contain the Earth)
+     * @param fixedPositions the equatorial positions of the fixed objects
+     * @throws IllegalArgumentException if the models contain the Earth
+     */
+    public TrackGenerator(GeographicCoordinates where, List<? extends CelestialObjectModel<? extends CelestialObject>> models,
+                          List<EquatorialCoordinates> fixedPositions) throws IllegalArgumentException {
+        // the Earth is rejected now rather than when the first sample is computed
+        checkArgument(!models.contains(PlanetModel.EARTH));
+        this.where  = where;
+        this.models = List.copyOf(models);
+        fixedRa  = new double[fixedPositions.size()];
+        fixedDec = new double[fixedPositions.size()];
+        for(int i = 0; i < fixedPositions.size(); ++i) {
+            fixedRa[i]  = fixedPositions.get(i).ra();
+            fixedDec[i] = fixedPositions.get(i).dec();
+        }
+    }
+
+    /**
+     * Gives the positions of the objects at the moments {@code start + k*step} for k in [0, count[
+     * (with a precision of a millisecond, as the conversions)
+     * The stream is ordered and sized, and can be split to be consumed in parallel
+     *
+     * @param start the first moment
+     * @param step the duration between two moments
+     * @param count the number of moments (must be positive)
+     * @return a stream of the samples, computed when they are consumed
+     * @throws IllegalArgumentException if the count is negative
+     */
+    public Stream<Sample> stream(ZonedDateTime start, Duration step, long count) throws IllegalArgumentException {
+        return StreamSupport.stream(new SampleSpliterator(start, step, 0, checkedCount(count)), false);
+    }
+
+    /**
+     * Same as {@code stream} but consumed by an iterator
+     *
+     * @param start the first moment
+     * @param step the duration between two moments
+     * @param count the number of moments (must be positive)
+     * @return an iterator over the samples, computed when they are asked
+     * @throws IllegalArgumentException if the count is negative
+     */
+    public Iterator<Sample> iterator(ZonedDateTime start, Duration step, long count) throws IllegalArgumentException {
+        return Spliterators.iterator(new SampleSpliterator(start, step, 0, checkedCount(count)));
+    }
+
+    /**
+     * Computes the positions of the objects at the given moment
+     * The ecliptic to equatorial conversion is created once and shared by all the moving objects
+     *
+     * @param when the moment of the observation
+     * @return the sample of this moment
+     */
+    public Sample at(ZonedDateTime when) {
+        return at(when.toInstant().toEpochMilli(), when.getZone(), when);
+    }
+
+    // getters ======================================================================================
+
+    /**
+     * @return the place of observation
+     */
+    public GeographicCoordinates where() {
+        return where;
+    }
+
+    /**
+     * @return the number of objects of each sample
+     */
+    public int objectCount() {
+        return models.size() + fixedRa.length;
+    }
+
+    /* *************************************************************************
+     *                                                                         *
+     *                    Internal implementation stuff                        *
+     *                                                                         *
+     **************************************************************************/
+
+    // when is null for the moments of a range, whose date is created by the sample only if asked
+    private Sample at(long epochMillis, ZoneId zone, ZonedDateTime when) {
+        int objectCount = models.size() + fixedRa.length;
+        double[] ra  = new double[objectCount];
+        double[] dec = new double[objectCount];
+        double[] az  = new double[objectCount];
+        double[] alt = new double[objectCount];
+
+        // the conversions use the moment in milliseconds, so no date is created
+        if(!models.isEmpty()) {
+            double days = Epoch.J2010.daysUntil(epochMillis);
+            EclipticToEquatorialConversion eclToEqu = new EclipticToEquatorialConversion(epochMillis);
+            for(int i = 0; i < models.size(); ++i) {
+                EquatorialCoordinates position = models.get(i).at(days, eclToEqu).equatorialPos();
+                ra[i]  = position.ra();
+                dec[i] = position.dec();
+            }
+        }
+        System.arraycopy(fixedRa,  0, ra,  models.size(), fixedRa.length);
+        System.arraycopy(fixedDec, 0, dec, models.size(), fixedDec.length);
+        new EquatorialToHorizontalConversion(epochMillis, where).apply(ra, dec, az, alt, 0, objectCount);
+        return new Sample(epochMillis, zone, when, az, alt);
+    }
+
+    private static long checkedCount(long count) {
+        checkArgument(count >= 0);
+        return count;
+    }
+
+    //================================================================================================
+
+    // gives the samples of index in [index, end[, the moments being computed from the start to not accumulate errors
+    private final class SampleSpliterator implements Spliterator<Sample> {
+
+        private final static int MINIMAL_SPLIT = 64;
+
+        private final long startMillis;
+        private final long stepMillis;
+        private final ZoneId zone;
+        private long index;
+        private final long end;
+
+        private SampleSpliterator(ZonedDateTime start, Duration step, long index, long end) {
+            this(start.toInstant().toEpochMilli(), step.toMillis(), start.getZone(), index, end);
+        }
+
+        private SampleSpliterator(long startMillis, long stepMillis, ZoneId zone, long index, long end) {
+            this.startMillis = startMillis;
+            this.stepMillis  = stepMillis;
+            this.zone        = zone;
+            this.index       = index;
+            this.end         = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Sample> action) {
+            if(index >= end)
+                return false;
+            action.accept(at(startMillis + index*stepMillis, zone, null));
+            ++index;
+            return true;
+        }
+
+        @Override
+        public Spliterator<Sample> trySplit() {
+            long middle = index + (end - index)/2;
+            if(middle - index < MINIMAL_SPLIT)
+                return null;
+            SampleSpliterator prefix = new SampleSpliterator(startMillis, stepMillis, zone, index, middle);
+            index = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+        }
+    }
+
+    /**
+     * Horizontal positions of the objects at a moment
+     */
+    public static final class Sample {
+
+        private final long epochMillis;
+        private final ZoneId zone;
+        private final double[] az;
+        private final double[] alt;
+        // created when it is first asked (an immutable date, so it can be created again by another thread)
+        private ZonedDateTime when;
+
+        private Sample(long epochMillis, ZoneId zone, ZonedDateTime when, double[] az, double[] alt) {
+            this.epochMillis = epochMillis;
+            this.zone        = zone;
+            this.when        = when;
+            this.az          = az;
+            this.alt         = alt;
+        }
+
+        /**
+         * @return the moment of the sample, in the zone of the start of the range
+         */
+        public ZonedDateTime when() {
+            if(when == null)
+                when = ZonedDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), zone);
+            return when;
+        }
+
+        /**
+         * @return the moment of the sample in milliseconds since 1970-01-01T00:00Z (without creating any date)
+         */
+        public long epochMillis() {
+            return epochMillis;
+        }
+
+        /**
+         * @return the number of objects
+         */
+        public int objectCount() {
+            return az.length;
+        }
+
+        /**
+         * @param object index of the object (models first, then fixed positions)
+         * @return the azimuth of the object in radians in [0, 2pi[
+         * @throws IndexOutOfBoundsException if there is no object at this index
+         */
+        public double az(int object) throws IndexOutOfBoundsException {
+            return az[object];
+        }
+
+        /**
+         * @param object index of the object (models first, then fixed positions)
+         * @return the altitude of the object in radians in [-pi/2, pi/2]
+         * @throws IndexOutOfBoundsException if there is no object at this index
+         */
+        public double alt(int object) throws IndexOutOfBoundsException {
+            return alt[object];
+        }
+
+        /**
+         * @param object index of the object (models first, then fixed positions)
+         * @return the horizontal position of the object
+         * @throws IndexOutOfBoundsException if there is no object at this index
+         */
+        public HorizontalCoordinates position(int object) throws IndexOutOfBoundsException {
+            return HorizontalCoordinates.of(az[object], alt[object]);
+        }
+    }
+}
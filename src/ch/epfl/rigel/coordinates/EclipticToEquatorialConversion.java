@@ -24,13 +24,31 @@ public final class EclipticToEquatorialConversion implements Function<EclipticCo
      * @param when {@code ZonedDateTime} at which the conversion and observation is made
      */
     public EclipticToEquatorialConversion(ZonedDateTime when) {
-        double jCentSinceJ2000 = Epoch.J2000.julianCenturiesUntil(when);
-        double epsilon = Angle.ofDMS(23, 26, 
-               INTER_0TO60.reduce(21.45 + POLYNOMIAL.at(jCentSinceJ2000)));
+        this(when.toInstant().toEpochMilli());
+    }
+
+    /**
+     * @param epochMillis moment at which the conversion and observation is made,
+     *                    in milliseconds since 1970-01-01T00:00Z (no date is created)
+     */
+    public EclipticToEquatorialConversion(long epochMillis) {
+        double epsilon = obliquity(Epoch.J2000.julianCenturiesUntil(epochMillis));
         sinOfEpsilon = Math.sin(epsilon);
         cosOfEpsilon = Math.cos(epsilon);
     };
 
+    /**
+     * Gives the obliquity of the ecliptic (angle between the ecliptic and the equator) at a given moment
+     * Used to convert many moments without creating a conversion for each of them
+     *
+     * @param julianCenturiesSinceJ2000 the moment in julian centuries since {@code Epoch.J2000}
+     * @return the obliquity of the ecliptic in radians
+     */
+    public static double obliquity(double julianCenturiesSinceJ2000) {
+        return Angle.ofDMS(23, 26,
+               INTER_0TO60.reduce(21.45 + POLYNOMIAL.at(julianCenturiesSinceJ2000)));
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -24,9 +24,18 @@ public final class EquatorialToHorizontalConversion implements Function<Equatori
      * @param where (GeographicCoordinates) of the observer
      */
     public EquatorialToHorizontalConversion(ZonedDateTime when, GeographicCoordinates where) {
+        this(when.toInstant().toEpochMilli(), where);
+    }
+
+    /**
+     * initialise the parameters need for the conversion without creating any date
+     * @param epochMillis moment of the observation in milliseconds since 1970-01-01T00:00Z
+     * @param where (GeographicCoordinates) of the observer
+     */
+    public EquatorialToHorizontalConversion(long epochMillis, GeographicCoordinates where) {
         cosOfPhi = Math.cos(where.lat());
         sinOfPhi = Math.sin(where.lat());
-        localSiderealTime = SiderealTime.local(when, where);
+        localSiderealTime = SiderealTime.local(epochMillis, where);
     }
 
     /**
@@ -45,6 +54,76 @@ public final class EquatorialToHorizontalConversion implements Function<Equatori
         return HorizontalCoordinates.of(Angle.normalizePositive(az), alt);
     }
 
+    /**
+     * Converts in bulk the equatorial positions of index in [from, to[ without creating any object
+     * (the results are the same as {@code apply} but they are not checked)
+     *
+     * @param ra right ascensions in radians
+     * @param dec declinations in radians
+     * @param az receives the azimuths in radians in [0, 2Pi[
+     * @param alt receives the altitudes in radians in [-Pi/2, Pi/2]
+     * @param from first index converted
+     * @param to index after the last converted
+     */
+    public void apply(double[] ra, double[] dec, double[] az, double[] alt, int from, int to) {
+        for(int i = from; i < to; ++i) {
+            double H = localSiderealTime - ra[i];
+            double sinGamma = Math.sin(dec[i]);
+            double cosGamma = Math.cos(dec[i]);
+
+            double altitude = Math.asin(sinGamma*sinOfPhi + cosGamma*cosOfPhi*Math.cos(H));
+            alt[i] = altitude;
+            az[i]  = Angle.normalizePositive(
+                    Math.atan2(-cosGamma*cosOfPhi*Math.sin(H), sinGamma - sinOfPhi*Math.sin(altitude)));
+        }
+    }
+
+    /**
+     * Converts in bulk the equatorial positions of index in [from, to[ to their directions
+     * in the horizontal system, without computing the horizontal angles
+     * The direction of the position i is stored in {@code directions} as
+     * east component (cos(alt)sin(az)) at 3*i, north component (cos(alt)cos(az)) at 3*i + 1
+     * and zenith component (sin(alt)) at 3*i + 2
+     * Used to keep the horizontal positions that can then be projected quickly by a {@code StereographicProjection}
+     *
+     * @param ra right ascensions in radians
+     * @param dec declinations in radians
+     * @param directions receives the directions components
+     * @param from first index converted
+     * @param to index after the last converted
+     */
+    public void applyToDirections(double[] ra, double[] dec, double[] directions, int from, int to) {
+        for(int i = from; i < to; ++i) {
+            double H = localSiderealTime - ra[i];
+            double cosH = Math.cos(H);
+            double sinGamma = Math.sin(dec[i]);
+            double cosGamma = Math.cos(dec[i]);
+
+            directions[3*i]     = -cosGamma*Math.sin(H);
+            directions[3*i + 1] = sinGamma*cosOfPhi - cosGamma*sinOfPhi*cosH;
+            directions[3*i + 2] = sinGamma*sinOfPhi + cosGamma*cosOfPhi*cosH;
+        }
+    }
+
+    /**
+     * @return the local sidereal time of the observation in radians
+     */
+    public double localSiderealTime() {
+        return localSiderealTime;
+    }
+
+    /**
+     * Gives the cosine of the hour angle at which an object of the given declination
+     * is at the given altitude for the observer (used to find when it rises and sets)
+     *
+     * @param dec declination in radians of the object
+     * @param altitude altitude in radians
+     * @return the cosine of the hour angle, out of [-1, 1] if the object never reaches the altitude
+     */
+    public double cosOfHourAngleAtAltitude(double dec, double altitude) {
+        return (Math.sin(altitude) - sinOfPhi*Math.sin(dec)) / (cosOfPhi*Math.cos(dec));
+    }
+
     /**
      * Always throw exception
      * {@code conversion.hashCode()} is forbidden
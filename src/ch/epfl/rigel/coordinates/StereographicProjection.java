@@ -16,6 +16,8 @@ public final class StereographicProjection implements Function<HorizontalCoordin
     private final double centerAzimuth;
     private final double sinCenterAlt;
     private final double cosCenterAlt;
+    private final double sinCenterAz;
+    private final double cosCenterAz;
 
     /**
      * @param center of the Stereographic projection
@@ -25,6 +27,8 @@ public final class StereographicProjection implements Function<HorizontalCoordin
         this.centerAzimuth = center.az();
         this.sinCenterAlt = Math.sin(centerAlt);
         this.cosCenterAlt = Math.cos(centerAlt);
+        this.sinCenterAz = Math.sin(centerAzimuth);
+        this.cosCenterAz = Math.cos(centerAzimuth);
     }
     
     /**
@@ -110,6 +114,56 @@ public final class StereographicProjection implements Function<HorizontalCoordin
         return CartesianCoordinates.of(x,y);
     }
 
+    /**
+     * Projects in bulk the horizontal positions of index in [from, to[ without creating any object
+     *
+     * @param az azimuths in radians
+     * @param alt altitudes in radians
+     * @param xy receives for the position i the abscissa at 2*i and the ordinate at 2*i + 1
+     * @param from first index projected
+     * @param to index after the last projected
+     */
+    public void apply(double[] az, double[] alt, double[] xy, int from, int to) {
+        for(int i = from; i < to; ++i) {
+            double cosPhi = Math.cos(alt[i]);
+            double sinPhi = Math.sin(alt[i]);
+
+            double lambdaD    = az[i] - centerAzimuth;
+            double cosLambdaD = Math.cos(lambdaD);
+
+            double d = 1.0/ (1 + sinCenterAlt*sinPhi + cosCenterAlt*cosPhi*cosLambdaD);
+
+            xy[2*i]     = d*cosPhi*Math.sin(lambdaD);
+            xy[2*i + 1] = d*(sinPhi*cosCenterAlt - cosPhi*sinCenterAlt*cosLambdaD);
+        }
+    }
+
+    /**
+     * Projects in bulk the horizontal directions of index in [from, to[ without creating any object
+     * (only products and sums are needed, no trigonometry)
+     *
+     * @param directions east, north and zenith components of each direction,
+     *                   as given by {@code EquatorialToHorizontalConversion.applyToDirections}
+     * @param xy receives for the position i the abscissa at 2*i and the ordinate at 2*i + 1
+     * @param from first index projected
+     * @param to index after the last projected
+     */
+    public void applyToDirections(double[] directions, double[] xy, int from, int to) {
+        for(int i = from; i < to; ++i) {
+            double cosAltSinAz = directions[3*i];
+            double cosAltCosAz = directions[3*i + 1];
+            double sinAlt      = directions[3*i + 2];
+
+            double cosAltCosLambdaD = cosAltCosAz*cosCenterAz + cosAltSinAz*sinCenterAz;
+            double cosAltSinLambdaD = cosAltSinAz*cosCenterAz - cosAltCosAz*sinCenterAz;
+
+            double d = 1.0/ (1 + sinCenterAlt*sinAlt + cosCenterAlt*cosAltCosLambdaD);
+
+            xy[2*i]     = d*cosAltSinLambdaD;
+            xy[2*i + 1] = d*(sinAlt*cosCenterAlt - sinCenterAlt*cosAltCosLambdaD);
+        }
+    }
+
     /**
      * Always throw exception
      * {@code conversion.projection()} is forbidden
@@ -11,6 +11,7 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
+import ch.epfl.rigel.astronomy.Star;
 import ch.epfl.rigel.math.ClosedInterval;
 import javafx.scene.paint.Color;
 
@@ -24,12 +25,11 @@ import javafx.scene.paint.Color;
  */
 public final class BlackBodyColor {
 
-    // contains only colors corresponding to multiples of 100 temperatures
-    private final static List<Color> ALL_TEMPERATURES_COLORS = load();
+    // contains only colors corresponding to multiples of 100 temperatures, indexed by their step
+    // (Star.colorTemperatureStepOf)
+    private final static Color[] ALL_TEMPERATURES_COLORS = load().toArray(new Color[0]);
     
     private final static ClosedInterval RANGE_OF_TEMPERATURES = ClosedInterval.of(1000, 40000); //in Kelvin
-    private final static int SMALLEST_TEMPERATURE = 1000;
-    private final static double RANGE_BETWEEN_TEMPERATURES = 100;
     
     private final static String DIESE = "#";
     private final static String TYPE_OF_TEMPERATURES = "10deg";
@@ -51,7 +51,21 @@ public final class BlackBodyColor {
      */
     public static  Color colorForTemperature(int temp) {
         checkInInterval(RANGE_OF_TEMPERATURES,temp);
-        return ALL_TEMPERATURES_COLORS.get((int) Math.round((temp - SMALLEST_TEMPERATURE) / RANGE_BETWEEN_TEMPERATURES));
+        return ALL_TEMPERATURES_COLORS[Star.colorTemperatureStepOf(temp)];
+    }
+
+    /**
+     * Gives the associated {@code Color} of the BlackBody from the index of its temperature rounded to
+     * a multiple of 100 degrees (0 for 1 000 K), without any check or computation
+     * (ex: the index precomputed for each star by {@code StarCatalogue.colorTemperatureStep})
+     *
+     * @param step index of the rounded temperature of the black body
+     * @return the associated {@code Color} of the code black body
+     * @throws ArrayIndexOutOfBoundsException if {@code step} does not belong in the interval [0, 390]
+     * (the steps of the temperatures from 1 000 to 40 000)
+     */
+    public static Color colorForTemperatureStep(int step) {
+        return ALL_TEMPERATURES_COLORS[step];
     }
     
     /**
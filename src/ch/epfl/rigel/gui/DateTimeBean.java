@@ -102,11 +102,18 @@ public final class DateTimeBean {
     
     /**
      * Set the characteristics of {@code zdt} to {@code this}
+     * Only the properties whose value changes are set, so they are the only ones to be invalidated
+     * (ex: the date and the zone are often the same at each step of an animation)
      * @param zdt the {@code ZoneDateTime} to be added to the fields of {@code this}
      */
     public void setZonedDateTime(ZonedDateTime zdt) {
-        setDate(zdt.toLocalDate());
-        setTime(zdt.toLocalTime());
-        setZone(zdt.getZone());
+        LocalDate newDate = zdt.toLocalDate();
+        LocalTime newTime = zdt.toLocalTime();
+        if(!newDate.equals(getDate()))
+            setDate(newDate);
+        if(!newTime.equals(getTime()))
+            setTime(newTime);
+        if(!zdt.getZone().equals(getZone()))
+            setZone(zdt.getZone());
     }
 }
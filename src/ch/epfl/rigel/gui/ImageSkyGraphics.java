@@ -0,0 +1,152 @@
+package ch.epfl.rigel.gui;
+
+import java.awt.BasicStroke;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.font.TextLayout;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+import javafx.scene.paint.Color;
+
+/**
+ * {@code SkyGraphics} drawing with Java2D in a {@code BufferedImage} of premultiplied ARGB pixels
+ * It does not need the JavaFX toolkit, so it can be used by any thread (one at a time) and without display
+ *
+ * @author Augustin ALLARD (299918)
+ */
+public final class ImageSkyGraphics implements SkyGraphics {
+
+    // same as the default font of JavaFX (System Regular, 13 px), whose family is a sans serif one
+    private final static Font TEXT_FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 13);
+
+    private final BufferedImage image;
+    private final Graphics2D graphics;
+    private final Ellipse2D.Double oval;
+    private final Rectangle2D.Double rectangle;
+    private Path2D.Double path;
+    private java.awt.Color fill;
+    private java.awt.Color stroke;
+
+    /**
+     * @param width of the image in pixels (must be strictly positive)
+     * @param height of the image in pixels (must be strictly positive)
+     * @throws IllegalArgumentException if the width or the height is not strictly positive
+     */
+    public ImageSkyGraphics(int width, int height) throws IllegalArgumentException {
+        image    = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        graphics = image.createGraphics();
+        graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        graphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+        oval      = new Ellipse2D.Double();
+        rectangle = new Rectangle2D.Double();
+        path      = new Path2D.Double();
+        fill      = java.awt.Color.BLACK;
+        stroke    = java.awt.Color.BLACK;
+    }
+
+    /**
+     * @return the image in which the sky is drawn
+     */
+    public BufferedImage image() {
+        return image;
+    }
+
+    /**
+     * @return the pixels of the image, in premultiplied ARGB and row by row
+     * (not copied, they are modified by the next drawings)
+     */
+    public int[] pixels() {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    @Override
+    public double width() {
+        return image.getWidth();
+    }
+
+    @Override
+    public double height() {
+        return image.getHeight();
+    }
+
+    @Override
+    public void setFill(Color color) {
+        fill = awtColorOf(color);
+    }
+
+    @Override
+    public void setStroke(Color color) {
+        stroke = awtColorOf(color);
+    }
+
+    @Override
+    public void setLineWidth(double width) {
+        graphics.setStroke(new BasicStroke((float) width));
+    }
+
+    @Override
+    public void fillRect(double x, double y, double width, double height) {
+        rectangle.setRect(x, y, width, height);
+        graphics.setColor(fill);
+        graphics.fill(rectangle);
+    }
+
+    @Override
+    public void fillOval(double x, double y, double width, double height) {
+        oval.setFrame(x, y, width, height);
+        graphics.setColor(fill);
+        graphics.fill(oval);
+    }
+
+    @Override
+    public void strokeOval(double x, double y, double width, double height) {
+        oval.setFrame(x, y, width, height);
+        graphics.setColor(stroke);
+        graphics.draw(oval);
+    }
+
+    @Override
+    public void strokeText(String text, double x, double y) {
+        if(text.isEmpty())
+            return;
+        // the outline of the letters is drawn, as by the strokeText of a JavaFX GraphicsContext
+        TextLayout layout = new TextLayout(text, TEXT_FONT, graphics.getFontRenderContext());
+        graphics.setColor(stroke);
+        graphics.draw(layout.getOutline(AffineTransform.getTranslateInstance(x, y)));
+    }
+
+    @Override
+    public void beginPath() {
+        path = new Path2D.Double();
+    }
+
+    @Override
+    public void moveTo(double x, double y) {
+        path.moveTo(x, y);
+    }
+
+    @Override
+    public void lineTo(double x, double y) {
+        path.lineTo(x, y);
+    }
+
+    @Override
+    public void stroke() {
+        graphics.setColor(stroke);
+        graphics.draw(path);
+    }
+
+    //================================================================================================
+
+    private static java.awt.Color awtColorOf(Color color) {
+        return new java.awt.Color((float) color.getRed(), (float) color.getGreen(), (float) color.getBlue(),
+                (float) color.getOpacity());
+    }
+}
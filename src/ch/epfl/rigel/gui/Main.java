@@ -3,6 +3,7 @@ package ch.epfl.rigel.gui;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.file.Paths;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -13,6 +14,7 @@ import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 import ch.epfl.rigel.astronomy.AsterismLoader;
+import ch.epfl.rigel.astronomy.BinaryStarLoader;
 import ch.epfl.rigel.astronomy.HygDatabaseLoader;
 import ch.epfl.rigel.astronomy.StarCatalogue;
 import ch.epfl.rigel.city.City;
@@ -66,6 +68,8 @@ public final class Main extends Application {
     private final static String UNICODE_FOR_PAUSE_BUT  = "\uf04c";
     private final static String NAME_FILE_OF_ASTERISMS = "/asterisms.txt";
     private final static String NAME_FILE_OF_STARS     = "/hygdata_v3.csv";
+    // path of a binary catalog (see HygBinaryConverter) loaded instead of the hyg_data file if it is set
+    private final static String BINARY_STARS_PROPERTY  = "rigel.binaryStars";
     
     // constants for initialization
     private final static int MINIMAL_WIDTH_STAGE    = 1350;
@@ -115,6 +119,13 @@ public final class Main extends Application {
         primaryStage.setScene(welcomeSceneTo(new Scene(mainRoot), primaryStage));
         primaryStage.show();
     }
+
+    @Override
+    public void stop() {
+        // the manager is null if the application stopped before being started
+        if(manager != null)
+            manager.close();
+    }
     
     /* *************************************************************************
      *                                                                         *
@@ -512,12 +523,18 @@ public final class Main extends Application {
     //====================================================================================================
     private static StarCatalogue initCatalog() {
         
-        try (InputStream hygStream = Main.class.getResourceAsStream(NAME_FILE_OF_STARS);
-             InputStream aStream   = Main.class.getResourceAsStream(NAME_FILE_OF_ASTERISMS)) {
-            return new StarCatalogue
-                    .Builder()
-                    .loadFrom(hygStream, HygDatabaseLoader.INSTANCE)
-                    .loadFrom(aStream,   AsterismLoader.INSTANCE)
+        String binaryStars = System.getProperty(BINARY_STARS_PROPERTY);
+        try (InputStream aStream = Main.class.getResourceAsStream(NAME_FILE_OF_ASTERISMS)) {
+            StarCatalogue.Builder builder = new StarCatalogue.Builder();
+            if(binaryStars != null) {
+                builder.loadFrom(Paths.get(binaryStars), BinaryStarLoader.INSTANCE);
+            } else {
+                try (InputStream hygStream = Main.class.getResourceAsStream(NAME_FILE_OF_STARS)) {
+                    builder.loadFrom(hygStream, HygDatabaseLoader.INSTANCE);
+                }
+            }
+            return builder
+                    .loadFrom(aStream, AsterismLoader.INSTANCE)
                     .build();
             
         } catch (IOException e) {
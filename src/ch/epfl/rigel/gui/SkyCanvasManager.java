@@ -8,7 +8,9 @@ import java.util.List;
 import java.util.Optional;
 
 import ch.epfl.rigel.astronomy.CelestialObject;
+import ch.epfl.rigel.astronomy.HorizontalSky;
 import ch.epfl.rigel.astronomy.ObservedSky;
+import ch.epfl.rigel.astronomy.Parallelism;
 import ch.epfl.rigel.astronomy.StarCatalogue;
 import ch.epfl.rigel.coordinates.CartesianCoordinates;
 import ch.epfl.rigel.coordinates.HorizontalCoordinates;
@@ -16,6 +18,8 @@ import ch.epfl.rigel.coordinates.StereographicProjection;
 import ch.epfl.rigel.math.Angle;
 import ch.epfl.rigel.math.ClosedInterval;
 import ch.epfl.rigel.math.RightOpenInterval;
+import javafx.application.Platform;
+import javafx.beans.Observable;
 import javafx.beans.binding.Bindings;
 import javafx.beans.binding.DoubleBinding;
 import javafx.beans.binding.ObjectBinding;
@@ -24,6 +28,7 @@ import javafx.geometry.Point2D;
 import javafx.geometry.Pos;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.control.Label;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
@@ -52,6 +57,11 @@ public final class SkyCanvasManager {
     private final static int AZIMUT_MOVE_STEP = 2;
     private final static int ALTITUDE_MOVE_STEP = 1;
     private final static CartesianCoordinates ZERO_POSITION = CartesianCoordinates.of(0, 0);
+    // the limiting magnitude keeps about the same density of stars on the screen when zooming in, and never goes
+    // under the one of the reference field (so all the stars of the bundled catalog, up to 6.0, are always drawn)
+    private final static double REFERENCE_FIELD_OF_VIEW_DEG = 68.4;
+    private final static double LIMITING_MAGNITUDE_AT_REFERENCE = 6.5;
+    private final static double LIMITING_MAGNITUDE_STEP = 0.25;
     //--------------------------------------------------------------------------------------------
     private final static double INFO_BOX_WIDTH = 100;
     private final static double INFO_BOX_HEIGTH = 70;
@@ -61,7 +71,7 @@ public final class SkyCanvasManager {
     private final static double CONSTANT_SHIFT_AT_DOWN_BORDER = 4.0/68.4;
 
     private final Canvas canvas;
-    private final SkyCanvasPainter painter;
+    private final SkyRenderer renderer;
     
     private final BooleanProperty drawWithStars;
     private final BooleanProperty drawWithHorizon;
@@ -79,7 +89,10 @@ public final class SkyCanvasManager {
     private final ObjectBinding<HorizontalCoordinates> mouseHorizontalPosition;
     private final ObjectBinding<Optional<CelestialObject>> objectUnderMouse;
 
-    private final ObjectBinding<ObservedSky> sky;
+    private final DoubleProperty limitingMagnitude;
+    // sky and transformation of the frame shown on the canvas
+    private final ObjectProperty<ObservedSky> sky;
+    private final ObjectProperty<Transform> shownPlaneToCanvas;
     private final ObjectBinding<StereographicProjection> projection;
     private final DoubleBinding scaleOfView;
     private final ObjectBinding<Transform> planeToCanvas;
@@ -92,6 +105,10 @@ public final class SkyCanvasManager {
     private final IntegerProperty selectionsNumber;
     private final StringProperty errorMessage;
     private boolean overlappingInfos;
+    // at most one request by pulse: changes made during a pulse only mark the sky as outdated
+    private boolean skyUpdateScheduled;
+    private long coalescedSkyUpdates;
+    private int shownCulledObjects;
     
     /**
      *
@@ -102,8 +119,8 @@ public final class SkyCanvasManager {
      */
     public SkyCanvasManager(StarCatalogue catalog, DateTimeBean dtb, ObserverLocationBean olb, ViewingParametersBean vpb) {
 
-        canvas  = new Canvas();
-        painter = new SkyCanvasPainter(canvas);
+        canvas   = new Canvas();
+        renderer = new SkyRenderer(catalog, this::showFrame);
 
         drawWithStars     = new SimpleBooleanProperty();
         drawWithPlanets   = new SimpleBooleanProperty();
@@ -142,14 +159,22 @@ public final class SkyCanvasManager {
                             canvas.getWidth()/2, canvas.getHeight()/2),
                             scaleOfView, canvas.widthProperty(), canvas.heightProperty());
 
-        mouseHorizontalPosition = Bindings.createObjectBinding(
-                () -> projection.get().inverseApply(mousePosition.get()),
-                            mousePosition, projection);
+        // changed by steps to project the sky again only when stars appear or disappear
+        limitingMagnitude = new SimpleDoubleProperty(limitingMagnitudeFor(vpb.getFieldOfViewDeg()));
+        vpb.fieldOfViewDegProperty().addListener(
+                (p, o, n) -> limitingMagnitude.set(limitingMagnitudeFor(n.doubleValue())));
+
+        // the skies are computed and painted by the renderer, the first one is computed here to be usable at once
+        sky = new SimpleObjectProperty<>(new ObservedSky(
+                new HorizontalSky(dtb.getZonedDateTime(), olb.getCoordinates(), catalog, limitingMagnitude.get(),
+                        Parallelism.defaultParallelism()),
+                projection.get(), limitingMagnitude.get(), Parallelism.defaultParallelism()));
+        shownPlaneToCanvas = new SimpleObjectProperty<>(planeToCanvas.get());
 
-        sky = Bindings.createObjectBinding(
-                () -> new ObservedSky(dtb.getZonedDateTime(), olb.getCoordinates(), projection.get(), catalog),
-                            projection, olb.coordinatesProperty(), dtb.timeProperty(),
-                            dtb.dateProperty(), dtb.zoneProperty());
+        // the mouse position is in the plane of the shown sky, which can lag behind the requested projection
+        mouseHorizontalPosition = Bindings.createObjectBinding(
+                () -> sky.get().projection().inverseApply(mousePosition.get()),
+                            mousePosition, sky);
 
         mouseAzDeg  = Bindings.createDoubleBinding( () ->
             mouseHorizontalPosition.get().azDeg(),
@@ -165,9 +190,13 @@ public final class SkyCanvasManager {
                     mousePosition, planeToCanvas, sky);
 
         //RE_DRAW VIA LISTENER ======================================================================
-        sky.addListener(e -> actualizeAstronomy());
-        
-        planeToCanvas.addListener(e -> actualizeAstronomy());
+        // each listened value is read again by actualizeAstronomy, so the bindings are invalidated again
+        for(Observable observable: List.of(dtb.dateProperty(), dtb.timeProperty(), dtb.zoneProperty(),
+                olb.coordinatesProperty(), projection, limitingMagnitude, planeToCanvas,
+                drawWithStars, drawWithPlanets, drawWithAsterisms, drawWithSun, drawWithMoon, drawWithHorizon)) {
+            observable.addListener(e -> actualizeAstronomy());
+        }
+        sky.addListener(e -> actualizeInfoBoxes());
 
         //--------------------------------------------------------------------------------------------
         selectionsNumber.addListener((p,o,n) -> {
@@ -289,7 +318,7 @@ public final class SkyCanvasManager {
         //MOUSE MOVE LISTENER =======================================================================
         canvas.setOnMouseMoved((e -> {
             try {
-                Point2D mp = planeToCanvas.get().createInverse().transform(e.getX(), e.getY());
+                Point2D mp = shownPlaneToCanvas.get().createInverse().transform(e.getX(), e.getY());
                 mousePosition.setValue(CartesianCoordinates.of(mp.getX(), mp.getY()));
 
             } catch (NonInvertibleTransformException error) {
@@ -342,18 +371,54 @@ public final class SkyCanvasManager {
         }
     }
 
+    // schedule the sky update after the other changes of the pulse (ex: date, time and zone of a DateTimeBean)
     private void actualizeAstronomy() {
-        painter.actualize(sky.get(), planeToCanvas.get(),
+        if(skyUpdateScheduled) {
+            ++coalescedSkyUpdates;
+        } else {
+            skyUpdateScheduled = true;
+            Platform.runLater(this::requestSky);
+        }
+    }
+
+    // ask the renderer the sky corresponding to the actual parameters
+    private void requestSky() {
+        skyUpdateScheduled = false;
+        renderer.request(new SkyRenderer.Request(dtb.getZonedDateTime(), olb.getCoordinates(),
+                projection.get(), limitingMagnitude.get(), planeToCanvas.get(),
+                (int) Math.ceil(canvas.getWidth()), (int) Math.ceil(canvas.getHeight()),
                 drawWithStars.get(), drawWithPlanets.get(), drawWithAsterisms.get(), drawWithSun.get(),
-                drawWithMoon.get(), drawWithHorizon.get());
+                drawWithMoon.get(), drawWithHorizon.get()));
+    }
+
+    // called on the JavaFX Application Thread with each sky painted by the renderer
+    private void showFrame(SkyRenderer.Frame frame) {
+        ImageSkyGraphics graphics = frame.graphics();
+        int width = (int) graphics.width();
+        canvas.getGraphicsContext2D().getPixelWriter().setPixels(0, 0, width, (int) graphics.height(),
+                PixelFormat.getIntArgbPreInstance(), graphics.pixels(), 0, width);
+        shownPlaneToCanvas.set(frame.planeToCanvas());
+        shownCulledObjects = frame.culledObjects();
+        sky.set(frame.sky());
+    }
+
+    private void actualizeInfoBoxes() {
         removePanes();
         for(CelestialObject o : selectedObjects.get()) {
-            if(sky.get().horizontalPointOf(o) != null
-                    && isInCanvasLimits(screenPointFor(sky.get().horizontalPointOf(o))))
+            HorizontalCoordinates position = sky.get().horizontalPointOf(o);
+            if(position != null && isInCanvasLimits(screenPointFor(position)))
                 showInfoBoxFor(o);
         }
     }
     //--------------------------------------------------------------------------------------------
+    // the number of stars up to a magnitude m grows like 10^(0.6m) and the visible area like fieldOfView^2
+    static double limitingMagnitudeFor(double fieldOfViewDeg) {
+        double magnitude = LIMITING_MAGNITUDE_AT_REFERENCE
+                + (10d / 3d) * Math.log10(REFERENCE_FIELD_OF_VIEW_DEG / fieldOfViewDeg);
+        return Math.max(LIMITING_MAGNITUDE_AT_REFERENCE,
+                Math.round(magnitude / LIMITING_MAGNITUDE_STEP) * LIMITING_MAGNITUDE_STEP);
+    }
+    //--------------------------------------------------------------------------------------------
     //more restrictive than canvas.getBoundsInLocal
     private boolean isInCanvasLimits(CartesianCoordinates screenPoint) {
         return screenPoint.x() > INFO_BOX_WIDTH/2 && screenPoint.x() < canvas.getWidth() - INFO_BOX_WIDTH/2
@@ -362,8 +427,8 @@ public final class SkyCanvasManager {
 
     //--------------------------------------------------------------------------------------------
     private CartesianCoordinates screenPointFor(HorizontalCoordinates hp) {
-        CartesianCoordinates planePoint = projection.get().apply(hp);
-        Point2D screenPoint = planeToCanvas.get().transform(planePoint.x(), planePoint.y());
+        CartesianCoordinates planePoint = sky.get().projection().apply(hp);
+        Point2D screenPoint = shownPlaneToCanvas.get().transform(planePoint.x(), planePoint.y());
         return CartesianCoordinates.of(screenPoint.getX(), screenPoint.getY());
     }
 
@@ -455,12 +520,14 @@ public final class SkyCanvasManager {
     public void goToDestinationWithName(String name) {
         try {
             cleanErrors();
-            HorizontalCoordinates destination = sky.get().availableDestinationForObjectNamed(name).get();
-            if (destination != null) {
+            // empty if the object is under the horizon or fainter than the limiting magnitude of the sky
+            Optional<HorizontalCoordinates> availableDestination = sky.get().availableDestinationForObjectNamed(name);
+            if (availableDestination.isPresent()) {
                 
+                HorizontalCoordinates destination = availableDestination.get();
                 centerAnimator.setDestination(destination.azDeg(), destination.altDeg());
-                addSelection(sky.get().objectClosestTo(projection.get().apply(destination),
-                                TOLERANCE_FOR_OBJ_DETECTION/scaleOfView.get()).get());
+                sky.get().objectClosestTo(sky.get().projection().apply(destination),
+                                TOLERANCE_FOR_OBJ_DETECTION/scaleOfView.get()).ifPresent(this::addSelection);
                 centerAnimator.start();
                 cleanErrors();
                 
@@ -472,7 +539,36 @@ public final class SkyCanvasManager {
         }
     }
     
+    /**
+     * Stop the thread computing the skies, the sky is not actualized anymore
+     * (must be called when the manager is not used anymore, ex: when the application stops)
+     */
+    public void close() {
+        renderer.close();
+    }
+
     // getters ======================================================================================
+    /**
+     * Gives the number of sky computations that have been avoided, because several changes were made during
+     * the same pulse (ex: the date, time and zone set by a {@code TimeAnimator}) or because a newer sky was
+     * asked before the computation started (must be called on the JavaFX Application Thread)
+     *
+     * @return the number of avoided sky computations
+     */
+    public long avoidedSkyRebuilds() {
+        return coalescedSkyUpdates + renderer.replacedRequests();
+    }
+
+    /**
+     * Gives the number of stars and planets of the shown sky that were not drawn, because they were outside
+     * of the canvas or below the horizon (must be called on the JavaFX Application Thread)
+     *
+     * @return the number of culled stars and planets of the shown sky
+     */
+    public int culledObjects() {
+        return shownCulledObjects;
+    }
+
     /**
      * @return the canvas the canvas where the sky is drawn
      */
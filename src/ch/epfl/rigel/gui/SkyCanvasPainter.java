@@ -1,26 +1,26 @@
 package ch.epfl.rigel.gui;
 
-import java.util.Iterator;
+import java.util.List;
 
-import ch.epfl.rigel.astronomy.Asterism;
 import ch.epfl.rigel.astronomy.ObservedSky;
 import ch.epfl.rigel.astronomy.Planet;
-import ch.epfl.rigel.astronomy.Star;
+import ch.epfl.rigel.astronomy.StarCatalogue;
 import ch.epfl.rigel.coordinates.CartesianCoordinates;
 import ch.epfl.rigel.coordinates.HorizontalCoordinates;
 import ch.epfl.rigel.coordinates.StereographicProjection;
 import ch.epfl.rigel.math.Angle;
 import ch.epfl.rigel.math.ClosedInterval;
 import javafx.geometry.Point2D;
-import javafx.scene.canvas.Canvas;
-import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.paint.Color;
 import javafx.scene.transform.Transform;
 
 /**
- * Used to paint the sky on a given {@code Canvas}
+ * Used to paint the sky on a given {@code SkyGraphics}
+ * (ex: an image painted outside of the JavaFX Application Thread, then copied on the canvas)
  * Different elements of the sky can be painted separately
  * The sky is given at each draw action
+ * The screen positions of the objects are computed once per drawing in buffers kept by the painter,
+ * so a painter must only be used by one thread at a time
  *
  * @author Augustin ALLARD (299918)
  */
@@ -52,16 +52,22 @@ public final class SkyCanvasPainter {
     private final static String BASIC_COLOR         = "white";
 
     
-    private final Canvas canvas;
-    private final GraphicsContext graph2D;
+    private final SkyGraphics graph2D;
+    // screen positions of the stars and the planets of the sky being drawn, computed once per drawing
+    // and kept from a drawing to the next one (only enlarged when the sky has more stars)
+    private double[] starScreenPoints   = new double[0];
+    private double[] planetScreenPoints = new double[0];
+    private int starScreenPointsLength;
+    // ends of the last segment clipped to the canvas (x0, y0, x1, y1)
+    private final double[] clippedSegment = new double[4];
+    // stars and planets not drawn by the last drawing, because outside of the canvas or below the horizon
+    private int culledObjects;
 
     /**
-     *
-     * @param canvas on which the sky is painted
+     * @param graphics on which the sky is painted
      */
-    public SkyCanvasPainter(Canvas canvas) {
-        this.canvas = canvas;
-        graph2D = canvas.getGraphicsContext2D();
+    public SkyCanvasPainter(SkyGraphics graphics) {
+        graph2D = graphics;
     }
 
     /**
@@ -86,8 +92,11 @@ public final class SkyCanvasPainter {
     public void drawSky(ObservedSky sky, Transform planeToCanvas,
                         boolean withStars, boolean withPlanets, boolean withAsterisms,
                         boolean withSun, boolean withMoon, boolean withHorizon) {
+        culledObjects = 0;
+        if(withAsterisms || withStars || withPlanets)
+            transformToScreen(sky, planeToCanvas);
         if(withAsterisms)
-            drawAsterisms(sky, planeToCanvas);
+            drawAsterisms(sky);
         if(withStars)
             drawStars(sky, planeToCanvas);
         if(withPlanets)
@@ -100,6 +109,16 @@ public final class SkyCanvasPainter {
             drawHorizon(sky.projection(), planeToCanvas);
     }
 
+    /**
+     * Gives the number of stars and planets that the last drawing did not draw, because their disc would have been
+     * outside of the canvas or because they are below the horizon (0 if they were not drawn)
+     *
+     * @return the number of stars and planets culled by the last drawing
+     */
+    public int culledObjects() {
+        return culledObjects;
+    }
+
     /* *************************************************************************
      *                                                                         *
      *                    Internal implementation stuff                        *
@@ -108,66 +127,136 @@ public final class SkyCanvasPainter {
     
     //Clear what has been drawn on the {@code Canvas} and reset it as a black board
     private void clear() {
-        graph2D.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
         graph2D.setFill(FONT_COLOR);
-        graph2D.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        graph2D.fillRect(0, 0, graph2D.width(), graph2D.height());
     }
 
-    private void drawAsterisms(ObservedSky sky, Transform planeToCanvas) {
-        int length = sky.starPointsRefs().length;
-        double[] screenPoints = new double[length];
-        planeToCanvas.transform2DPoints(sky.starPointsRefs(), 0, screenPoints, 0, length/2);
+    // transform the plane points of the stars and planets to the screen once for all the drawings of the sky
+    // (the points are read from the views of the sky, without copying its arrays, and transformed in place)
+    private void transformToScreen(ObservedSky sky, Transform planeToCanvas) {
+        starScreenPointsLength = 2*sky.starCount();
+        if(starScreenPoints.length < starScreenPointsLength)
+            starScreenPoints = new double[starScreenPointsLength];
+        sky.starPoints().get(starScreenPoints, 0, starScreenPointsLength);
+        planeToCanvas.transform2DPoints(starScreenPoints, 0, starScreenPoints, 0, starScreenPointsLength/2);
+
+        int planetPointsLength = 2*sky.planetCount();
+        if(planetScreenPoints.length != planetPointsLength)
+            planetScreenPoints = new double[planetPointsLength];
+        sky.planetPoints().get(planetScreenPoints);
+        planeToCanvas.transform2DPoints(planetScreenPoints, 0, planetScreenPoints, 0, planetPointsLength/2);
+    }
+
+    private void drawAsterisms(ObservedSky sky) {
+        int length = starScreenPointsLength;
+        double[] screenPoints = starScreenPoints;
+        double width  = graph2D.width();
+        double height = graph2D.height();
 
         graph2D.setLineWidth(ASTERISM_LINE_WIDTH);
         graph2D.beginPath();
         graph2D.setStroke(ASTERISM_LINE_COLOR);
 
-        for(Asterism a: sky.asterisms()) {
+        // the edges are read by index from the catalog, and clipped to the canvas without creating any object
+        StarCatalogue catalog = sky.catalog();
+        for(int e = 0; e < catalog.asterismEdgeCount(); ++e) {
+            int from = catalog.asterismEdgeFrom(e);
+            int to   = catalog.asterismEdgeTo(e);
+            // stars fainter than the limiting magnitude of the sky have no point
+            if(2*Math.max(from, to) >= length)
+                continue;
 
-            Iterator<Integer> iteratorOverID = sky.asterismIndices(a).iterator();
-            int idOfStarFrom = iteratorOverID.next();
+            if(clipSegment(screenPoints[2*from], screenPoints[2*from + 1], screenPoints[2*to], screenPoints[2*to + 1],
+                    width, height)) {
+                graph2D.moveTo(clippedSegment[0], clippedSegment[1]);
+                graph2D.lineTo(clippedSegment[2], clippedSegment[3]);
+            }
+        }
+        graph2D.stroke();
+    }
 
-            while(iteratorOverID.hasNext()) {
+    /*
+     * Clip the segment from (x0, y0) to (x1, y1) to the rectangle [0, width] x [0, height] (Liang-Barsky algorithm)
+     * so the segments crossing the canvas are drawn even when both their ends are outside of it
+     * Return false if no part of the segment is in the rectangle, else put the ends of the clipped segment
+     * in clippedSegment (x0, y0, x1, y1)
+     */
+    private boolean clipSegment(double x0, double y0, double x1, double y1, double width, double height) {
+        double dx = x1 - x0;
+        double dy = y1 - y0;
+        double tMin = 0;
+        double tMax = 1;
 
-                int idOfStarTo = iteratorOverID.next();
-                double xFr = screenPoints[2*idOfStarFrom];
-                double yFr = screenPoints[2*idOfStarFrom+1];
-                double xTo = screenPoints[2*idOfStarTo];
-                double yTo = screenPoints[2*idOfStarTo+1];
+        // for each side of the rectangle, p*t <= q must hold for the points of the segment inside it
+        for(int side = 0; side < 4; ++side) {
+            double p, q;
+            switch(side) {
+            case 0:  p = -dx; q = x0;          break; // left
+            case 1:  p =  dx; q = width - x0;  break; // right
+            case 2:  p = -dy; q = y0;          break; // top
+            default: p =  dy; q = height - y0; break; // bottom
+            }
 
-                if(canvas.getBoundsInLocal().contains(xFr, yFr) || canvas.getBoundsInLocal().contains(xTo, yTo)) {
-                    graph2D.moveTo(xFr, yFr);
-                    graph2D.lineTo(xTo, yTo);
+            if(p == 0) {
+                // parallel to the side, and outside of it
+                if(q < 0)
+                    return false;
+            } else {
+                double t = q / p;
+                if(p < 0) {
+                    // entering
+                    if(t > tMax)
+                        return false;
+                    tMin = Math.max(tMin, t);
+                } else {
+                    // leaving
+                    if(t < tMin)
+                        return false;
+                    tMax = Math.min(tMax, t);
                 }
-                idOfStarFrom = idOfStarTo;
             }
         }
-        graph2D.stroke();
-        graph2D.closePath();
+
+        clippedSegment[0] = x0 + tMin*dx;
+        clippedSegment[1] = y0 + tMin*dy;
+        clippedSegment[2] = x0 + tMax*dx;
+        clippedSegment[3] = y0 + tMax*dy;
+        return true;
+    }
+
+    // true if a disc of the given radius centered on the point can be seen on the canvas
+    private boolean isInBounds(double x, double y, double radius) {
+        return x >= -radius && x <= graph2D.width() + radius && y >= -radius && y <= graph2D.height() + radius;
     }
 
     private void drawStars(ObservedSky sky, Transform planeToCanvas) {
-        int length = sky.starPointsRefs().length;
-        double[] screenPoints = new double[length];
-        planeToCanvas.transform2DPoints(sky.starPointsRefs(), 0, screenPoints, 0, length/2);
-
-        int i = 0;
-        for(Star s: sky.stars()) {
-            drawEllipseOf(BlackBodyColor.colorForTemperature(s.colorTemperature()),
-                    screenPoints[i], screenPoints[i + 1], s.magnitude(), planeToCanvas);
-            i += 2;
+        int length = starScreenPointsLength;
+        double[] screenPoints = starScreenPoints;
+
+        // read the characteristics by index to avoid creating the Star objects
+        StarCatalogue catalog = sky.catalog();
+        double margin = radiusFor(RANGE_OF_MAGNITUDE.low(), planeToCanvas);
+        for(int i = 0; i < length/2; ++i) {
+            if(!isInBounds(screenPoints[2*i], screenPoints[2*i + 1], margin) || !sky.isStarAboveHorizon(i)) {
+                ++culledObjects;
+                continue;
+            }
+            drawEllipseOf(BlackBodyColor.colorForTemperatureStep(catalog.colorTemperatureStep(i)),
+                    screenPoints[2*i], screenPoints[2*i + 1], catalog.magnitude(i), planeToCanvas);
         }
     }
 
     private void drawPlanets(ObservedSky sky, Transform planeToCanvas) {
-        int l = sky.planetPointsRefs().length;
-        double[] screenPoints = new double[l];
-        planeToCanvas.transform2DPoints(sky.planetPointsRefs(), 0, screenPoints, 0, l/2);
-
-        int i = 0;
-        for(Planet p: sky.planets()) {
-            drawEllipseOf(PLANET_COLOR, screenPoints[i], screenPoints[i + 1], p.magnitude(), planeToCanvas);
-            i += 2;
+        double[] screenPoints = planetScreenPoints;
+        double margin = radiusFor(RANGE_OF_MAGNITUDE.low(), planeToCanvas);
+        List<Planet> planets = sky.planets();
+        for(int i = 0; i < planets.size(); ++i) {
+            if(!isInBounds(screenPoints[2*i], screenPoints[2*i + 1], margin) || !sky.isPlanetAboveHorizon(i)) {
+                ++culledObjects;
+                continue;
+            }
+            drawEllipseOf(PLANET_COLOR, screenPoints[2*i], screenPoints[2*i + 1], planets.get(i).magnitude(),
+                    planeToCanvas);
         }
     }
 
@@ -229,13 +318,17 @@ public final class SkyCanvasPainter {
     }
 
     private void drawEllipseOf(Color color, double planeX, double planeY, double magnitude, Transform planeToCanvas) {
-        double clipedMagnitude = RANGE_OF_MAGNITUDE.clip(magnitude);
-        double sizeFactor = SIZE_FACTOR_FOR_ZERO_MAGNITUDE - INFLUENCE_FACT_OF_MAG_ON_SIZE*clipedMagnitude;
-        
-        double radius = sizeFactor * DIAMETER_FACTOR * planeToCanvas.getMxx();
+        double radius = radiusFor(magnitude, planeToCanvas);
         double diameter = 2*radius;
         
         graph2D.setFill(color);
         graph2D.fillOval(planeX - radius, planeY - radius, diameter, diameter);
     }
+
+    // radius on the screen of a star or a planet of the given magnitude (the brightest objects being the largest)
+    private static double radiusFor(double magnitude, Transform planeToCanvas) {
+        double clipedMagnitude = RANGE_OF_MAGNITUDE.clip(magnitude);
+        double sizeFactor = SIZE_FACTOR_FOR_ZERO_MAGNITUDE - INFLUENCE_FACT_OF_MAG_ON_SIZE*clipedMagnitude;
+        return sizeFactor * DIAMETER_FACTOR * planeToCanvas.getMxx();
+    }
 }
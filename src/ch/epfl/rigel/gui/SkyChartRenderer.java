@@ -0,0 +1,239 @@
+package ch.epfl.rigel.gui;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+import ch.epfl.rigel.astronomy.AsterismLoader;
+import ch.epfl.rigel.astronomy.BinaryStarLoader;
+import ch.epfl.rigel.astronomy.HorizontalSky;
+import ch.epfl.rigel.astronomy.HygDatabaseLoader;
+import ch.epfl.rigel.astronomy.ObservedSky;
+import ch.epfl.rigel.astronomy.Parallelism;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.HorizontalCoordinates;
+import ch.epfl.rigel.coordinates.StereographicProjection;
+import ch.epfl.rigel.math.Angle;
+import javafx.scene.transform.Transform;
+
+/**
+ * Renders sky charts as PNG images without any JavaFX stage (so also on servers without display)
+ * The skies are painted by a {@code SkyCanvasPainter} in images ({@code ImageSkyGraphics}),
+ * several frames being rendered in parallel
+ *
+ * Command line usage (all the options are optional):
+ * {@code java ch.epfl.rigel.gui.SkyChartRenderer --time 2020-02-17T20:15+01:00 --frames 24 --step PT1H
+ *        --lon 6.57 --lat 46.52 --az 180 --alt 22 --fov 68.4 --width 800 --height 600
+ *        --output charts --threads 8 --stars hygdata_v3.bin}
+ * writes charts/sky-0000.png to charts/sky-0023.png, one hour apart
+ * (the stars are loaded from a hyg_data file, or a binary catalog if its name ends with .bin,
+ * the bundled catalog being used by default)
+ * An unknown option or an invalid value prints the usage and exits with the status 1
+ *
+ * @author Augustin ALLARD (299918)
+ * @see ImageSkyGraphics
+ */
+public final class SkyChartRenderer {
+
+    private final static String NAME_FILE_OF_ASTERISMS = "/asterisms.txt";
+    private final static String NAME_FILE_OF_STARS     = "/hygdata_v3.csv";
+    private final static String BINARY_CATALOG_SUFFIX  = ".bin";
+    private final static String FRAME_NAME_FORMAT      = "sky-%04d.png";
+    private final static Set<String> OPTION_NAMES = Set.of("time", "frames", "step", "lon", "lat", "az", "alt",
+            "fov", "width", "height", "output", "threads", "stars");
+    private final static String USAGE = "usage: SkyChartRenderer [--option value]..."
+            + " with the options " + String.join(", ", new TreeSet<>(OPTION_NAMES))
+            + " (see the documentation of the class)";
+
+    private final StarCatalogue catalog;
+
+    /**
+     * @param catalog containing the stars and asterisms of the charts
+     */
+    public SkyChartRenderer(StarCatalogue catalog) {
+        this.catalog = catalog;
+    }
+
+    /**
+     * Render the sky observed at the given time and place, with all its elements
+     * (can be called by several threads at the same time)
+     *
+     * @param obsTime the time of the observation
+     * @param obsPlace the coordinates of the observer
+     * @param center the center of the view
+     * @param fieldOfViewDeg the field of view in degrees (on the largest dimension of the image)
+     * @param width of the image in pixels
+     * @param height of the image in pixels
+     * @return the image of the sky
+     * @throws IllegalArgumentException if the width or the height is not strictly positive
+     */
+    public BufferedImage render(ZonedDateTime obsTime, GeographicCoordinates obsPlace, HorizontalCoordinates center,
+                                double fieldOfViewDeg, int width, int height) throws IllegalArgumentException {
+        StereographicProjection projection = new StereographicProjection(center);
+        // the frames are already computed in parallel, so each one is computed sequentially
+        // and only the stars under the limiting magnitude are converted
+        double limitingMagnitude = SkyCanvasManager.limitingMagnitudeFor(fieldOfViewDeg);
+        ObservedSky sky = new ObservedSky(
+                new HorizontalSky(obsTime, obsPlace, catalog, limitingMagnitude, Parallelism.SEQUENTIAL),
+                projection, limitingMagnitude, Parallelism.SEQUENTIAL);
+
+        // same view as the one of SkyCanvasManager
+        double scale = Math.max(width, height) / projection.applyToAngle(Angle.ofDeg(fieldOfViewDeg));
+        Transform planeToCanvas = Transform.affine(scale, 0, 0, -scale, width/2d, height/2d);
+
+        ImageSkyGraphics graphics = new ImageSkyGraphics(width, height);
+        new SkyCanvasPainter(graphics).actualize(sky, planeToCanvas, true, true, true, true, true, true);
+        return graphics.image();
+    }
+
+    /**
+     * Render the frames observed at {@code count} times separated by {@code step} from {@code firstTime}
+     * and write them as PNG files in the directory, with the given number of threads
+     *
+     * @return the paths of the written files, in the order of the frames
+     * @throws IOException if a file could not be written
+     */
+    public List<Path> renderFrames(ZonedDateTime firstTime, Duration step, int count, GeographicCoordinates obsPlace,
+                                   HorizontalCoordinates center, double fieldOfViewDeg, int width, int height,
+                                   Path directory, int threads) throws IOException {
+        Files.createDirectories(directory);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Path>> frames = new ArrayList<>();
+            for(int i = 0; i < count; ++i) {
+                ZonedDateTime obsTime = firstTime.plus(step.multipliedBy(i));
+                Path file = directory.resolve(String.format(Locale.ROOT, FRAME_NAME_FORMAT, i));
+                frames.add(executor.submit(() -> {
+                    ImageIO.write(render(obsTime, obsPlace, center, fieldOfViewDeg, width, height), "png",
+                            file.toFile());
+                    return file;
+                }));
+            }
+
+            List<Path> files = new ArrayList<>();
+            for(Future<Path> frame: frames)
+                files.add(frame.get());
+            return files;
+
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("rendering interrupted", e);
+        } catch(ExecutionException e) {
+            if(e.getCause() instanceof IOException)
+                throw (IOException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for(int i = 0; i < args.length; i += 2) {
+            if(!args[i].startsWith("--"))
+                exitWithUsage("unexpected argument: " + args[i]);
+            if(i + 1 == args.length || args[i + 1].startsWith("--"))
+                exitWithUsage("option without value: " + args[i]);
+            String name = args[i].substring(2);
+            if(!OPTION_NAMES.contains(name))
+                exitWithUsage("unknown option: " + args[i]);
+            options.put(name, args[i + 1]);
+        }
+
+        // all the options are read before rendering, so a wrong value is reported as a usage error
+        ZonedDateTime time;
+        Duration step;
+        int frames, width, height, threads;
+        GeographicCoordinates place;
+        HorizontalCoordinates center;
+        double fieldOfViewDeg;
+        try {
+            time = options.containsKey("time") ? ZonedDateTime.parse(options.get("time")) : ZonedDateTime.now();
+            step = Duration.parse(options.getOrDefault("step", "PT1H"));
+            frames = Integer.parseInt(options.getOrDefault("frames", "1"));
+            width  = Integer.parseInt(options.getOrDefault("width", "800"));
+            height = Integer.parseInt(options.getOrDefault("height", "600"));
+            threads = Integer.parseInt(options.getOrDefault("threads",
+                    Integer.toString(Runtime.getRuntime().availableProcessors())));
+            place  = GeographicCoordinates.ofDeg(doubleOption(options, "lon", 6.57),
+                    doubleOption(options, "lat", 46.52));
+            center = HorizontalCoordinates.ofDeg(doubleOption(options, "az", 180 + 1.e-12),
+                    doubleOption(options, "alt", 22));
+            fieldOfViewDeg = doubleOption(options, "fov", 68.4);
+        } catch(DateTimeParseException e) {
+            exitWithUsage("invalid date, time or duration: " + e.getParsedString());
+            return;
+        } catch(NumberFormatException e) {
+            exitWithUsage("invalid number: " + e.getMessage());
+            return;
+        } catch(IllegalArgumentException e) {
+            exitWithUsage("invalid coordinates");
+            return;
+        }
+        if(frames < 0 || width <= 0 || height <= 0 || threads <= 0 || !(fieldOfViewDeg > 0))
+            exitWithUsage("the frames must be positive, and the size, threads and fov strictly positive");
+
+        long start = System.nanoTime();
+        SkyChartRenderer renderer = new SkyChartRenderer(loadCatalog(options.get("stars")));
+        List<Path> files = renderer.renderFrames(time, step, frames, place, center, fieldOfViewDeg, width, height,
+                Paths.get(options.getOrDefault("output", ".")), threads);
+        System.out.printf(Locale.ROOT, "%d charts written in %.1f s%n", files.size(),
+                (System.nanoTime() - start) / 1e9);
+    }
+
+    /* *************************************************************************
+     *                                                                         *
+     *                    Internal implementation stuff                        *
+     *                                                                         *
+     **************************************************************************/
+
+    private static void exitWithUsage(String problem) {
+        System.err.println(problem);
+        System.err.println(USAGE);
+        System.exit(1);
+    }
+
+    private static double doubleOption(Map<String, String> options, String name, double defaultValue) {
+        return options.containsKey(name) ? Double.parseDouble(options.get(name)) : defaultValue;
+    }
+
+    private static StarCatalogue loadCatalog(String starsFile) {
+        try(InputStream aStream = SkyChartRenderer.class.getResourceAsStream(NAME_FILE_OF_ASTERISMS)) {
+            StarCatalogue.Builder builder = new StarCatalogue.Builder();
+            if(starsFile == null) {
+                try(InputStream hygStream = SkyChartRenderer.class.getResourceAsStream(NAME_FILE_OF_STARS)) {
+                    builder.loadFrom(hygStream, HygDatabaseLoader.INSTANCE);
+                }
+            } else {
+                builder.loadFrom(Paths.get(starsFile), starsFile.endsWith(BINARY_CATALOG_SUFFIX)
+                        ? BinaryStarLoader.INSTANCE
+                        : HygDatabaseLoader.INSTANCE);
+            }
+            return builder.loadFrom(aStream, AsterismLoader.INSTANCE).build();
+
+        } catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
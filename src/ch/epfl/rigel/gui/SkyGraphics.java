@@ -0,0 +1,80 @@
+package ch.epfl.rigel.gui;
+
+import javafx.scene.paint.Color;
+
+/**
+ * Drawing surface used by {@code SkyCanvasPainter}
+ * It contains only the drawing operations needed to paint a sky, with the same meaning as those
+ * of a JavaFX {@code GraphicsContext}, so a sky can be painted in an image outside of the
+ * JavaFX Application Thread and look the same as if it was painted on a {@code Canvas}
+ *
+ * @author Augustin ALLARD (299918)
+ * @see ImageSkyGraphics
+ */
+public interface SkyGraphics {
+
+    /**
+     * @return the width of the surface in pixels
+     */
+    double width();
+
+    /**
+     * @return the height of the surface in pixels
+     */
+    double height();
+
+    /**
+     * @param color used by the next fill operations
+     */
+    void setFill(Color color);
+
+    /**
+     * @param color used by the next stroke operations
+     */
+    void setStroke(Color color);
+
+    /**
+     * @param width of the lines of the next stroke operations
+     */
+    void setLineWidth(double width);
+
+    /**
+     * Fill the rectangle with the fill color
+     */
+    void fillRect(double x, double y, double width, double height);
+
+    /**
+     * Fill the oval bounded by the rectangle with the fill color
+     */
+    void fillOval(double x, double y, double width, double height);
+
+    /**
+     * Stroke the oval bounded by the rectangle with the stroke color
+     */
+    void strokeOval(double x, double y, double width, double height);
+
+    /**
+     * Stroke the text starting at the given position with the stroke color
+     */
+    void strokeText(String text, double x, double y);
+
+    /**
+     * Start a new path, made of the segments added by {@code moveTo} and {@code lineTo}
+     */
+    void beginPath();
+
+    /**
+     * Start a new segment of the path at the given position
+     */
+    void moveTo(double x, double y);
+
+    /**
+     * Add a segment from the last position of the path to the given position
+     */
+    void lineTo(double x, double y);
+
+    /**
+     * Stroke the current path with the stroke color
+     */
+    void stroke();
+}
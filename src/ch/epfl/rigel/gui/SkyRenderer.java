@@ -0,0 +1,234 @@
+package ch.epfl.rigel.gui;
+
+import java.time.ZonedDateTime;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import ch.epfl.rigel.astronomy.HorizontalSky;
+import ch.epfl.rigel.astronomy.ObservedSky;
+import ch.epfl.rigel.astronomy.Parallelism;
+import ch.epfl.rigel.astronomy.StarCatalogue;
+import ch.epfl.rigel.coordinates.GeographicCoordinates;
+import ch.epfl.rigel.coordinates.StereographicProjection;
+import javafx.application.Platform;
+import javafx.scene.transform.Transform;
+
+/**
+ * Computes and paints skies on a background thread, so the JavaFX Application Thread only copies
+ * the finished images on the canvas
+ * The requests are coalesced: when several requests are made while a sky is computed,
+ * only the newest one is rendered, and a finished frame replaces the one not yet shown
+ * The positions of the objects are kept while only the view changes (same time and place of observation)
+ *
+ * @author Augustin ALLARD (299918)
+ * @see SkyCanvasManager
+ */
+final class SkyRenderer {
+
+    private final StarCatalogue catalog;
+    private final Consumer<Frame> frameConsumer;
+    private final ExecutorService worker;
+    private final AtomicReference<Request> pendingRequest;
+    private final AtomicReference<Frame> readyFrame;
+    // frame already shown, whose image and painter (with its screen buffers) are reused for the next sky
+    private final AtomicReference<Frame> spareFrame;
+
+    // only used by the thread making the requests
+    private long replacedRequests;
+    // only used by the worker thread
+    private HorizontalSky lastHorizontalSky;
+
+    /**
+     * @param catalog containing the observed stars and asterisms
+     * @param frameConsumer receiving on the JavaFX Application Thread each rendered frame,
+     *                      whose graphics can only be used until it returns
+     */
+    SkyRenderer(StarCatalogue catalog, Consumer<Frame> frameConsumer) {
+        this.catalog       = catalog;
+        this.frameConsumer = frameConsumer;
+        this.worker        = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sky-renderer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        pendingRequest = new AtomicReference<>();
+        readyFrame     = new AtomicReference<>();
+        spareFrame     = new AtomicReference<>();
+    }
+
+    /**
+     * Ask the rendering of a sky, replacing the request not yet started if there is one
+     * (ignored if the size of the image is empty or if the renderer is closed)
+     *
+     * @param request describing the sky to render
+     */
+    void request(Request request) {
+        if(request.width <= 0 || request.height <= 0 || worker.isShutdown())
+            return;
+        if(pendingRequest.getAndSet(request) == null)
+            worker.execute(this::renderPendingRequest);
+        else
+            ++replacedRequests;
+    }
+
+    /**
+     * @return the number of requests replaced by a newer one before being rendered
+     * (must be called by the thread making the requests)
+     */
+    long replacedRequests() {
+        return replacedRequests;
+    }
+
+    /**
+     * Stop the worker thread, the requests not yet rendered are dropped and the next ones are ignored
+     * (a frame that is already rendered can still be given to the frame consumer)
+     */
+    void close() {
+        pendingRequest.set(null);
+        worker.shutdownNow();
+    }
+
+    /* *************************************************************************
+     *                                                                         *
+     *                    Internal implementation stuff                        *
+     *                                                                         *
+     **************************************************************************/
+
+    // worker thread
+    private void renderPendingRequest() {
+        Request request = pendingRequest.getAndSet(null);
+        if(request == null)
+            return;
+
+        // only the stars under the limiting magnitude are converted, and the horizontal sky is kept while
+        // the view changes if it contains all of them (ex: not after zooming in)
+        if(lastHorizontalSky == null || !request.isObservedFrom(lastHorizontalSky)
+                || lastHorizontalSky.starCount() < catalog.starCountUpToMagnitude(request.limitingMagnitude))
+            lastHorizontalSky = new HorizontalSky(request.obsTime, request.obsPlace, catalog,
+                    request.limitingMagnitude, Parallelism.defaultParallelism());
+        ObservedSky sky = new ObservedSky(lastHorizontalSky, request.projection,
+                request.limitingMagnitude, Parallelism.defaultParallelism());
+
+        Frame spare = spareFrame.getAndSet(null);
+        ImageSkyGraphics graphics;
+        SkyCanvasPainter painter;
+        if(spare == null || spare.graphics.width() != request.width || spare.graphics.height() != request.height) {
+            graphics = new ImageSkyGraphics(request.width, request.height);
+            painter  = new SkyCanvasPainter(graphics);
+        } else {
+            graphics = spare.graphics;
+            painter  = spare.painter;
+        }
+        painter.actualize(sky, request.planeToCanvas,
+                request.withStars, request.withPlanets, request.withAsterisms,
+                request.withSun, request.withMoon, request.withHorizon);
+
+        Frame previous = readyFrame.getAndSet(
+                new Frame(sky, request.planeToCanvas, graphics, painter, painter.culledObjects()));
+        if(previous == null)
+            Platform.runLater(this::showReadyFrame);
+        else
+            spareFrame.set(previous);
+    }
+
+    // JavaFX Application Thread
+    private void showReadyFrame() {
+        Frame frame = readyFrame.getAndSet(null);
+        if(frame != null) {
+            frameConsumer.accept(frame);
+            spareFrame.set(frame);
+        }
+    }
+
+    //================================================================================================
+
+    /**
+     * Description of a sky to render (time and place of observation, view and drawn elements)
+     */
+    static final class Request {
+
+        private final ZonedDateTime obsTime;
+        private final GeographicCoordinates obsPlace;
+        private final StereographicProjection projection;
+        private final double limitingMagnitude;
+        private final Transform planeToCanvas;
+        private final int width;
+        private final int height;
+        private final boolean withStars, withPlanets, withAsterisms, withSun, withMoon, withHorizon;
+
+        Request(ZonedDateTime obsTime, GeographicCoordinates obsPlace, StereographicProjection projection,
+                double limitingMagnitude, Transform planeToCanvas, int width, int height,
+                boolean withStars, boolean withPlanets, boolean withAsterisms,
+                boolean withSun, boolean withMoon, boolean withHorizon) {
+            this.obsTime           = obsTime;
+            this.obsPlace          = obsPlace;
+            this.projection        = projection;
+            this.limitingMagnitude = limitingMagnitude;
+            this.planeToCanvas     = planeToCanvas;
+            this.width             = width;
+            this.height            = height;
+            this.withStars         = withStars;
+            this.withPlanets       = withPlanets;
+            this.withAsterisms     = withAsterisms;
+            this.withSun           = withSun;
+            this.withMoon          = withMoon;
+            this.withHorizon       = withHorizon;
+        }
+
+        private boolean isObservedFrom(HorizontalSky sky) {
+            return sky.obsTime().equals(obsTime)
+                    && sky.obsPlace().lon() == obsPlace.lon() && sky.obsPlace().lat() == obsPlace.lat();
+        }
+    }
+
+    /**
+     * Rendered sky, with the image of its painting
+     */
+    static final class Frame {
+
+        private final ObservedSky sky;
+        private final Transform planeToCanvas;
+        private final ImageSkyGraphics graphics;
+        private final SkyCanvasPainter painter;
+        private final int culledObjects;
+
+        private Frame(ObservedSky sky, Transform planeToCanvas, ImageSkyGraphics graphics, SkyCanvasPainter painter,
+                      int culledObjects) {
+            this.sky           = sky;
+            this.planeToCanvas = planeToCanvas;
+            this.graphics      = graphics;
+            this.painter       = painter;
+            this.culledObjects = culledObjects;
+        }
+
+        /**
+         * @return the rendered sky
+         */
+        ObservedSky sky() {
+            return sky;
+        }
+
+        /**
+         * @return the transformation used to paint the sky
+         */
+        Transform planeToCanvas() {
+            return planeToCanvas;
+        }
+
+        /**
+         * @return the graphics containing the image of the sky
+         */
+        ImageSkyGraphics graphics() {
+            return graphics;
+        }
+
+        /**
+         * @return the number of stars and planets not painted, because outside of the image or below the horizon
+         */
+        int culledObjects() {
+            return culledObjects;
+        }
+    }
+}